@@ -0,0 +1,40 @@
+package com.trianglez.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler on, so allocation rates get reported next to the timings. Has to be run
+ * from the project root. Any normal JMH command line options can be passed, e.g. a regex to only run some benchmarks:
+ * <pre>
+ *     java -cp ... com.trianglez.benchmarks.BenchmarkMain "ScalingBenchmark" -p algorithm=FORWARD
+ * </pre>
+ * Results are also written to bench_output.json so runs can be compared for regressions.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine).addProfiler(GCProfiler.class);
+        // defaults only, anything given on the command line wins
+        if (commandLine.getIncludes().isEmpty())
+            builder.include(BenchmarkMain.class.getPackage().getName() + ".*");
+        if (!commandLine.getForkCount().hasValue())
+            builder.forks(1);
+        if (!commandLine.getWarmupIterations().hasValue())
+            builder.warmupIterations(3);
+        if (!commandLine.getMeasurementIterations().hasValue())
+            builder.measurementIterations(5);
+        if (!commandLine.getJvmArgsAppend().hasValue())
+            builder.jvmArgsAppend("-Xmx8g");
+        if (!commandLine.getResult().hasValue())
+            builder.resultFormat(ResultFormatType.JSON).result("bench_output.json");
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
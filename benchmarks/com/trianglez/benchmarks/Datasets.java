@@ -0,0 +1,57 @@
+package com.trianglez.benchmarks;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.FBPageNode;
+import com.trianglez.readers.FBGraphReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The testres edge lists the benchmarks run on. Paths are relative to the project root, same as the tests.
+ */
+final class Datasets {
+    /**
+     * Reads every dataset into one graph.
+     */
+    static final String ALL = "all";
+
+    private Datasets() {
+    }
+
+    static File file(String dataset) {
+        return Paths.get("testres", dataset + "_edges.csv").toFile();
+    }
+
+    /**
+     * @return every dataset file in testres.
+     */
+    static List<File> files() throws IOException {
+        File[] files = Paths.get("testres").toFile().listFiles((dir, name) -> name.endsWith("_edges.csv"));
+        if (files == null)
+            throw new IOException("Run the benchmarks from the project root so testres/ can be found.");
+        return Arrays.asList(files);
+    }
+
+    /**
+     * @param dataset a file name prefix in testres, e.g. "new_sites", or {@link #ALL}.
+     * @return a reader that read the dataset.
+     */
+    static FBGraphReader read(String dataset) throws IOException {
+        FBGraphReader reader = new FBGraphReader();
+        if (ALL.equals(dataset)) {
+            for (File f : files())
+                reader.read(f);
+        } else {
+            reader.read(file(dataset));
+        }
+        return reader;
+    }
+
+    static CSRGraph<FBPageNode> graph(String dataset) throws IOException {
+        return read(dataset).getCSRGraph();
+    }
+}
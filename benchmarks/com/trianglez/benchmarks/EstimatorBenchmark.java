@@ -0,0 +1,55 @@
+package com.trianglez.benchmarks;
+
+import com.trianglez.Estimate;
+import com.trianglez.TriangleEstimator;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.FBPageNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sampling estimates of {@link TriangleEstimator} over every dataset at once, to compare with the exact counts in
+ * {@link ScalingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EstimatorBenchmark {
+
+    @Param({"10000", "100000"})
+    public int samples;
+
+    private CSRGraph<FBPageNode> graph;
+    private TriangleEstimator<FBPageNode> estimator;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.graph = Datasets.graph(Datasets.ALL);
+        this.estimator = new TriangleEstimator<>(this.graph, 1);
+    }
+
+    @Benchmark
+    public Estimate countTriangles() {
+        return this.estimator.countTriangles(this.samples);
+    }
+
+    @Benchmark
+    public Estimate avgClusteringCoefficient() {
+        return this.estimator.avgClusteringCoefficient(this.samples);
+    }
+
+    @Benchmark
+    public Estimate sparsifiedCount() {
+        return this.estimator.sparsifiedCount(0.1, 2);
+    }
+}
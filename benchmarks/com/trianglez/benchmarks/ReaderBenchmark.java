@@ -0,0 +1,32 @@
+package com.trianglez.benchmarks;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.FBPageNode;
+import com.trianglez.readers.FBGraphReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FBGraphReader#read} plus building the CSR, per dataset and for all of them together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReaderBenchmark {
+
+    @Param({"athletes", "company", "government", "new_sites", "politician", "public_figure", "tvshow", Datasets.ALL})
+    public String dataset;
+
+    @Benchmark
+    public CSRGraph<FBPageNode> read() throws IOException {
+        return Datasets.read(this.dataset).getCSRGraph();
+    }
+}
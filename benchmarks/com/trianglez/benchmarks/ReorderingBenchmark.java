@@ -0,0 +1,57 @@
+package com.trianglez.benchmarks;
+
+import com.trianglez.Algorithm;
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.Reordering;
+import com.trianglez.node.types.FBPageNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counting on every dataset at once after each {@link Reordering.Strategy}, and on the order the reader gave the
+ * nodes, plus what the reordering itself costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReorderingBenchmark {
+
+    @Param({"NONE", "DEGREE", "DEGENERACY", "RCM"})
+    public String strategy;
+
+    @Param({"NODE_ITERATOR", "FORWARD"})
+    public Algorithm algorithm;
+
+    private CSRGraph<FBPageNode> original;
+    private CSRGraph<FBPageNode> graph;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.original = Datasets.graph(Datasets.ALL);
+        this.graph = "NONE".equals(this.strategy) ? this.original :
+                Reordering.of(this.original, Reordering.Strategy.valueOf(this.strategy)).getGraph();
+    }
+
+    @Benchmark
+    public TriangleCounter<FBPageNode> countTriangles() {
+        return new TriangleCounter<>(this.graph, false, this.algorithm);
+    }
+
+    @Benchmark
+    public CSRGraph<FBPageNode> reorder() {
+        if ("NONE".equals(this.strategy))
+            return this.original;
+        return Reordering.of(this.original, Reordering.Strategy.valueOf(this.strategy)).getGraph();
+    }
+}
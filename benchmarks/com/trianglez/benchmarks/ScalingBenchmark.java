@@ -0,0 +1,67 @@
+package com.trianglez.benchmarks;
+
+import com.trianglez.Algorithm;
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.FBPageNode;
+import com.trianglez.readers.FBGraphReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How counting, and reading with {@link FBGraphReader#readAll}, scale with the size of the {@link ForkJoinPool} they
+ * run on, over every dataset at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ScalingBenchmark {
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    @Param({"NODE_ITERATOR", "FORWARD"})
+    public Algorithm algorithm;
+
+    private CSRGraph<FBPageNode> graph;
+    private List<File> files;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.graph = Datasets.graph(Datasets.ALL);
+        this.files = Datasets.files();
+        this.pool = new ForkJoinPool(this.threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+    @Benchmark
+    public TriangleCounter<FBPageNode> countTriangles() {
+        return new TriangleCounter<>(this.graph, this.algorithm, this.pool);
+    }
+
+    @Benchmark
+    public CSRGraph<FBPageNode> readAll() throws IOException {
+        FBGraphReader reader = new FBGraphReader();
+        reader.readAll(this.files, this.pool);
+        return reader.getCSRGraph();
+    }
+}
@@ -0,0 +1,92 @@
+package com.trianglez.benchmarks;
+
+import com.trianglez.Algorithm;
+import com.trianglez.Triangle;
+import com.trianglez.TriangleCounter;
+import com.trianglez.TriangleFinder;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.FBPageNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enumeration, dedupe and the clustering methods of {@link TriangleFinder} and {@link TriangleCounter}. The graph and a
+ * finder for the query benchmarks are set up once per trial, so only the measured call is timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TriangleFinderBenchmark {
+
+    @Param({"athletes", "company", "government", "new_sites", "politician", "public_figure", "tvshow"})
+    public String dataset;
+
+    @Param({"NODE_ITERATOR", "FORWARD"})
+    public Algorithm algorithm;
+
+    @Param({"false", "true"})
+    public boolean parallelism;
+
+    private CSRGraph<FBPageNode> graph;
+    private TriangleFinder<FBPageNode> finder;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.graph = Datasets.graph(this.dataset);
+        this.finder = new TriangleFinder<>(this.graph, this.parallelism, this.algorithm);
+    }
+
+    @Benchmark
+    public TriangleFinder<FBPageNode> findTriangles() {
+        return new TriangleFinder<>(this.graph, this.parallelism, this.algorithm);
+    }
+
+    @Benchmark
+    public TriangleCounter<FBPageNode> countTriangles() {
+        return new TriangleCounter<>(this.graph, this.parallelism, this.algorithm);
+    }
+
+    @Benchmark
+    public List<Triangle<FBPageNode>> distinctTriangles() {
+        return this.finder.distinctTriangles();
+    }
+
+    @Benchmark
+    public Set<Triangle<FBPageNode>> uniqueTriangles() {
+        return this.finder.uniqueTriangles(false);
+    }
+
+    /**
+     * The coefficient aggregates are cached after the first call, so each invocation gets a fresh counter over the
+     * finder's local counts.
+     */
+    @Benchmark
+    public double avgClusteringCoefficient() {
+        return new TriangleCounter<>(this.graph, this.finder.getLocalCounts()).avgClusteringCoefficient();
+    }
+
+    @Benchmark
+    public double globalClusteringCoefficient() {
+        return new TriangleCounter<>(this.graph, this.finder.getLocalCounts()).globalClusteringCoefficient();
+    }
+
+    @Benchmark
+    public double clusteringCoefficientPerNode() {
+        double sum = 0;
+        for (FBPageNode n : this.graph.getNodes())
+            sum += this.finder.clusteringCoefficient(n);
+        return sum;
+    }
+}
@@ -0,0 +1,225 @@
+package com.trianglez;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs the roots of a {@link TriangleEngine} on a {@link ForkJoinPool}, splitting by the engine's cost estimate
+ * instead of by number of roots. On power-law graphs a handful of hub roots do most of the work, so a root whose
+ * cost alone is over the split threshold gets its positions split into sub tasks as well. Idle workers steal whatever
+ * is left over.
+ * <p>
+ * Work that adds up into something can get a partial result per task instead of per range or per thread, see
+ * {@link #run(TriangleEngine, ForkJoinPool, Supplier, PartialTask, Consumer)}.
+ *
+ * @param <T> type of the partial results, Void if there aren't any.
+ */
+class BalancedScheduler<T> {
+
+    /**
+     * Work done for a range of positions of a root.
+     */
+    @FunctionalInterface
+    interface RangeTask {
+        /**
+         * @return false to stop everything.
+         */
+        boolean run(int root, int from, int to);
+    }
+
+    /**
+     * Work done for a range of positions of a root, adding up into the partial result of its task.
+     */
+    @FunctionalInterface
+    interface PartialTask<T> {
+        /**
+         * @return false to stop everything.
+         */
+        boolean run(T partial, int root, int from, int to);
+    }
+
+    /**
+     * Roughly how many tasks each worker gets, so there's something left to steal near the end.
+     */
+    private static final int TASKS_PER_THREAD = 16;
+
+    private final TriangleEngine engine;
+    private final Supplier<T> partials;
+    private final PartialTask<T> task;
+    private final Consumer<T> done;
+    /**
+     * prefixCost[r] is the summed cost of roots 0 until r.
+     */
+    private final long[] prefixCost;
+    private final long threshold;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    private BalancedScheduler(TriangleEngine engine, int threads, Supplier<T> partials, PartialTask<T> task,
+                              Consumer<T> done) {
+        this.engine = engine;
+        this.partials = partials;
+        this.task = task;
+        this.done = done;
+        this.prefixCost = new long[engine.roots() + 1];
+        for (int r = 0; r < engine.roots(); r++)
+            this.prefixCost[r + 1] = this.prefixCost[r] + engine.cost(r);
+        this.threshold = Math.max(1, this.prefixCost[engine.roots()] / ((long) threads * TASKS_PER_THREAD));
+    }
+
+    /**
+     * Runs task over every position of every root of engine.
+     *
+     * @param pool the pool to run on, or null to run everything on the calling thread in root order.
+     * @return false if a task returned false. Tasks that were already running still finish.
+     */
+    static boolean run(TriangleEngine engine, ForkJoinPool pool, RangeTask task) {
+        return run(engine, pool, () -> null, (Void partial, int root, int from, int to) -> task.run(root, from, to),
+                partial -> {
+                });
+    }
+
+    /**
+     * Runs task over every position of every root of engine, with a new partial result for every task the work gets
+     * split into. Those are only a few per thread, so partials can be big, and nothing is kept per thread once the
+     * run is done.
+     *
+     * @param pool     the pool to run on, or null to run everything on the calling thread in root order, with one
+     *                 partial.
+     * @param partials makes an empty partial result.
+     * @param done     gets every partial once its task is over, from the thread that ran it, so it has to be thread
+     *                 safe. Also gets the partial of a task that stopped.
+     * @return false if a task returned false. Tasks that were already running still finish.
+     */
+    static <T> boolean run(TriangleEngine engine, ForkJoinPool pool, Supplier<T> partials, PartialTask<T> task,
+                           Consumer<T> done) {
+        if (pool == null) {
+            T partial = partials.get();
+            try {
+                for (int r = 0; r < engine.roots(); r++)
+                    if (!task.run(partial, r, 0, engine.width(r)))
+                        return false;
+                return true;
+            } finally {
+                done.accept(partial);
+            }
+        }
+        BalancedScheduler<T> scheduler = new BalancedScheduler<>(engine, pool.getParallelism(), partials, task, done);
+        return pool.invoke(scheduler.new RootsTask(0, engine.roots()));
+    }
+
+    /**
+     * Roots lo until hi, whole, on one partial.
+     */
+    private boolean runRoots(int lo, int hi) {
+        T partial = this.partials.get();
+        try {
+            for (int r = lo; r < hi; r++)
+                if (!runRange(partial, r, 0, this.engine.width(r)))
+                    return false;
+            return true;
+        } finally {
+            this.done.accept(partial);
+        }
+    }
+
+    private boolean runPositions(int root, int from, int to) {
+        T partial = this.partials.get();
+        try {
+            return runRange(partial, root, from, to);
+        } finally {
+            this.done.accept(partial);
+        }
+    }
+
+    private boolean runRange(T partial, int root, int from, int to) {
+        if (this.stopped.get())
+            return false;
+        if (this.task.run(partial, root, from, to))
+            return true;
+        this.stopped.set(true);
+        return false;
+    }
+
+    /**
+     * Roots lo until hi, split at the middle of their cost.
+     */
+    @SuppressWarnings("serial")
+    private class RootsTask extends RecursiveTask<Boolean> {
+        private final int lo;
+        private final int hi;
+
+        RootsTask(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Boolean compute() {
+            long cost = prefixCost[this.hi] - prefixCost[this.lo];
+            if (this.hi - this.lo == 1) {
+                int width = engine.width(this.lo);
+                if (cost > threshold && width > 1)
+                    return new PositionsTask(this.lo, 0, width, cost / width).compute();
+                return runPositions(this.lo, 0, width);
+            }
+            if (cost <= threshold)
+                return runRoots(this.lo, this.hi);
+
+            int mid = split(this.lo, this.hi, prefixCost[this.lo] + cost / 2);
+            RootsTask left = new RootsTask(this.lo, mid);
+            RootsTask right = new RootsTask(mid, this.hi);
+            left.fork();
+            boolean rightResult = right.compute();
+            return left.join() && rightResult;
+        }
+
+        /**
+         * @return first root in (lo, hi) whose prefix cost reaches target, clamped so both halves are non-empty.
+         */
+        private int split(int lo, int hi, long target) {
+            int a = lo + 1;
+            int b = hi - 1;
+            while (a < b) {
+                int m = (a + b) >>> 1;
+                if (prefixCost[m] < target)
+                    a = m + 1;
+                else
+                    b = m;
+            }
+            return a;
+        }
+    }
+
+    /**
+     * Positions from until to of one expensive root, halved until they fit under the threshold.
+     */
+    @SuppressWarnings("serial")
+    private class PositionsTask extends RecursiveTask<Boolean> {
+        private final int root;
+        private final int from;
+        private final int to;
+        private final long costPerPosition;
+
+        PositionsTask(int root, int from, int to, long costPerPosition) {
+            this.root = root;
+            this.from = from;
+            this.to = to;
+            this.costPerPosition = costPerPosition;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (this.to - this.from == 1 || (this.to - this.from) * this.costPerPosition <= threshold)
+                return runPositions(this.root, this.from, this.to);
+            int mid = (this.from + this.to) >>> 1;
+            PositionsTask left = new PositionsTask(this.root, this.from, mid, this.costPerPosition);
+            PositionsTask right = new PositionsTask(this.root, mid, this.to, this.costPerPosition);
+            left.fork();
+            boolean rightResult = right.compute();
+            return left.join() && rightResult;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.trianglez;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.Node;
+import com.trianglez.node.types.FBPageDictionary;
+import com.trianglez.node.types.FBPageNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Triangle counts and clustering coefficients broken down by node category, e.g. {@link
+ * com.trianglez.node.types.FBPageNode#getCategory()}, plus how many triangles span one, two or three categories. It's
+ * all added up in primitive arrays during a single enumeration, no {@link Triangle}s get created. Categories are
+ * turned into small codes once up front so the visitor only ever compares ints, or taken straight from a
+ * {@link FBPageDictionary} which has them already. With a pool every scheduled task adds up into arrays of its own,
+ * which get merged when it ends.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class CategoryAnalytics<N extends Node> {
+
+    private final CSRGraph<N> g;
+    private final List<String> categories;
+    private final Map<String, Integer> codes;
+    /**
+     * Category code per node index.
+     */
+    private final int[] categoryOf;
+    private final long[] localCounts;
+    private final Totals totals;
+
+    /**
+     * Runs {@link Algorithm#FORWARD}.
+     */
+    public CategoryAnalytics(final CSRGraph<N> g, Function<N, String> category, boolean parallelism) {
+        this(g, category, Algorithm.FORWARD, parallelism ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * @param category the category of a node.
+     * @param pool     where to run, or null to run on the calling thread.
+     */
+    public CategoryAnalytics(final CSRGraph<N> g, Function<N, String> category, Algorithm algorithm,
+                             ForkJoinPool pool) {
+        this(g, Codes.of(g, category), algorithm, pool);
+    }
+
+    /**
+     * Takes the category codes the dictionary already has instead of going through the category Strings.
+     *
+     * @param g          a graph built with dictionary, e.g. {@link com.trianglez.readers.FBGraphReader#getCSRGraph()},
+     *                   so node indices are dictionary indices.
+     * @param dictionary the dictionary that handed out the node indices of g.
+     * @param pool       where to run, or null to run on the calling thread.
+     */
+    public static CategoryAnalytics<FBPageNode> of(final CSRGraph<FBPageNode> g, FBPageDictionary dictionary,
+                                                   Algorithm algorithm, ForkJoinPool pool) {
+        return new CategoryAnalytics<>(g, Codes.of(g, dictionary), algorithm, pool);
+    }
+
+    private CategoryAnalytics(final CSRGraph<N> g, Codes codes, Algorithm algorithm, ForkJoinPool pool) {
+        this.g = g;
+        this.categoryOf = codes.categoryOf;
+        this.categories = Collections.unmodifiableList(codes.names);
+        this.codes = new HashMap<>();
+        for (int code = 0; code < codes.names.size(); code++)
+            this.codes.put(codes.names.get(code), code);
+
+        TriangleEngine engine = algorithm.engine(g, true);
+        int k = codes.names.size();
+        if (pool == null) {
+            long[] counts = new long[g.nodeCount()];
+            Totals all = new Totals(k);
+            BalancedScheduler.run(engine, null, (root, from, to) -> engine.visit(root, from, to, (a, b, c) -> {
+                counts[a]++;
+                counts[b]++;
+                counts[c]++;
+                all.add(this.categoryOf[a], this.categoryOf[b], this.categoryOf[c]);
+                return true;
+            }));
+            this.localCounts = counts;
+            this.totals = all;
+            return;
+        }
+
+        // one Totals per scheduled task, merged in as each one ends
+        AtomicLongArray counts = new AtomicLongArray(g.nodeCount());
+        Totals all = new Totals(k);
+        BalancedScheduler.run(engine, pool, () -> new Totals(k),
+                (Totals totals, int root, int from, int to) -> engine.visit(root, from, to, (a, b, c) -> {
+                    counts.incrementAndGet(a);
+                    counts.incrementAndGet(b);
+                    counts.incrementAndGet(c);
+                    totals.add(this.categoryOf[a], this.categoryOf[b], this.categoryOf[c]);
+                    return true;
+                }), totals -> {
+                    synchronized (all) {
+                        all.addAll(totals);
+                    }
+                });
+        this.localCounts = new long[counts.length()];
+        for (int u = 0; u < this.localCounts.length; u++)
+            this.localCounts[u] = counts.get(u);
+        this.totals = all;
+    }
+
+    /**
+     * A category code per node index, and the category name of each code.
+     */
+    private static final class Codes {
+        private final int[] categoryOf;
+        private final List<String> names;
+
+        private Codes(int[] categoryOf, List<String> names) {
+            this.categoryOf = categoryOf;
+            this.names = names;
+        }
+
+        static <N extends Node> Codes of(CSRGraph<N> g, Function<N, String> category) {
+            Map<String, Integer> codes = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            int[] categoryOf = new int[g.nodeCount()];
+            for (int u = 0; u < g.nodeCount(); u++) {
+                String name = category.apply(g.node(u));
+                Integer code = codes.get(name);
+                if (code == null) {
+                    code = names.size();
+                    codes.put(name, code);
+                    names.add(name);
+                }
+                categoryOf[u] = code;
+            }
+            return new Codes(categoryOf, names);
+        }
+
+        static Codes of(CSRGraph<FBPageNode> g, FBPageDictionary dictionary) {
+            if (g.nodeCount() != dictionary.size())
+                throw new IllegalArgumentException("Graph has " + g.nodeCount() + " nodes, the dictionary "
+                        + dictionary.size() + ". Was it built with another one?");
+            int[] categoryOf = new int[g.nodeCount()];
+            for (int u = 0; u < categoryOf.length; u++)
+                categoryOf[u] = dictionary.categoryOf(u);
+            List<String> names = new ArrayList<>();
+            for (int code = 0; code < dictionary.categoryCount(); code++)
+                names.add(dictionary.categoryName(code));
+            return new Codes(categoryOf, names);
+        }
+    }
+
+    /**
+     * Per category sums, indexed by code.
+     */
+    private static final class Totals {
+        private final int k;
+        /**
+         * Triangles by number of distinct categories minus one.
+         */
+        private final long[] spans = new long[3];
+        private final long[] internal;
+        private final long[] touching;
+        /**
+         * Triangles with corners in both i and j, at i * k + j for i &lt; j.
+         */
+        private final long[] pairs;
+
+        Totals(int k) {
+            this.k = k;
+            this.internal = new long[k];
+            this.touching = new long[k];
+            this.pairs = new long[k * k];
+        }
+
+        void add(int a, int b, int c) {
+            if (a == b && b == c) {
+                this.spans[0]++;
+                this.internal[a]++;
+                this.touching[a]++;
+            } else if (a == b || b == c || a == c) {
+                this.spans[1]++;
+                int other = a == b ? c : b == c ? a : b;
+                int same = a == b || a == c ? a : b;
+                this.touching[same]++;
+                this.touching[other]++;
+                pair(same, other);
+            } else {
+                this.spans[2]++;
+                this.touching[a]++;
+                this.touching[b]++;
+                this.touching[c]++;
+                pair(a, b);
+                pair(b, c);
+                pair(a, c);
+            }
+        }
+
+        private void pair(int a, int b) {
+            this.pairs[Math.min(a, b) * this.k + Math.max(a, b)]++;
+        }
+
+        void addAll(Totals other) {
+            for (int i = 0; i < 3; i++)
+                this.spans[i] += other.spans[i];
+            for (int i = 0; i < this.k; i++) {
+                this.internal[i] += other.internal[i];
+                this.touching[i] += other.touching[i];
+            }
+            for (int i = 0; i < this.pairs.length; i++)
+                this.pairs[i] += other.pairs[i];
+        }
+    }
+
+    /**
+     * @return every category, in order of first appearance.
+     */
+    public List<String> getCategories() {
+        return this.categories;
+    }
+
+    /**
+     * @return number of triangles per node index of the graph. Don't modify it.
+     */
+    public long[] getLocalCounts() {
+        return this.localCounts;
+    }
+
+    /**
+     * @return a counter over the same counts, for the per node queries. Nothing gets enumerated again.
+     */
+    public TriangleCounter<N> toCounter() {
+        return new TriangleCounter<>(this.g, this.localCounts);
+    }
+
+    /**
+     * @return number of unique triangles in the whole graph.
+     */
+    public long countTriangles() {
+        return this.totals.spans[0] + this.totals.spans[1] + this.totals.spans[2];
+    }
+
+    /**
+     * @param categories 1, 2 or 3.
+     * @return number of triangles whose corners are in exactly that many different categories.
+     */
+    public long countTrianglesSpanning(int categories) {
+        if (categories < 1 || categories > 3)
+            throw new IllegalArgumentException("A triangle spans 1 to 3 categories, not " + categories);
+        return this.totals.spans[categories - 1];
+    }
+
+    /**
+     * @return number of triangles with all three corners in category.
+     */
+    public long countTriangles(String category) {
+        return this.totals.internal[code(category)];
+    }
+
+    /**
+     * @return number of triangles with at least one corner in category.
+     */
+    public long countTouchingTriangles(String category) {
+        return this.totals.touching[code(category)];
+    }
+
+    /**
+     * @return number of triangles with at least one corner in each of two different categories.
+     */
+    public long countTriangles(String category, String other) {
+        int a = code(category);
+        int b = code(other);
+        if (a == b)
+            throw new IllegalArgumentException("Expected two different categories, got " + category + " twice.");
+        return this.totals.pairs[Math.min(a, b) * this.categories.size() + Math.max(a, b)];
+    }
+
+    /**
+     * @return sum of the local triangle counts of the nodes in category.
+     */
+    public long countLocalTriangles(String category) {
+        int code = code(category);
+        long sum = 0;
+        for (int u = 0; u < this.localCounts.length; u++)
+            if (this.categoryOf[u] == code)
+                sum += this.localCounts[u];
+        return sum;
+    }
+
+    /**
+     * Same as {@link TriangleCounter#globalClusteringCoefficient()} with only the nodes of category.
+     */
+    public double globalClusteringCoefficient(String category) {
+        int code = code(category);
+        return Coefficients.global(this.localCounts.length, u -> this.categoryOf[u] == code, this.g::degree,
+                u -> this.localCounts[u]);
+    }
+
+    /**
+     * Same as {@link TriangleCounter#avgClusteringCoefficient()} with only the nodes of category.
+     */
+    public double avgClusteringCoefficient(String category) {
+        int code = code(category);
+        return Coefficients.average(this.localCounts.length, u -> this.categoryOf[u] == code, this.g::degree,
+                u -> this.localCounts[u]);
+    }
+
+    private int code(String category) {
+        Integer code = this.codes.get(category);
+        if (code == null)
+            throw new IllegalArgumentException("No node has category " + category);
+        return code;
+    }
+}
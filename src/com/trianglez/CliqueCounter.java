@@ -0,0 +1,289 @@
+package com.trianglez;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.Intersections;
+import com.trianglez.node.Node;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Counts k-cliques, sets of k nodes that are all adjacent to each other, the way {@link TriangleCounter} counts
+ * triangles, which are the 3-cliques. Edges are pointed along {@link CSRGraph#degeneracyOrder()}, so no node has more
+ * than degeneracy outgoing edges, and every clique is found exactly once from its first node in that order by
+ * intersecting outgoing rows level by level (Chiba and Nishizeki, kClist of Danisch et al., WWW 2018). The candidates
+ * of a level are the intersection of the level above with the outgoing row of the node just added, so they only ever
+ * get smaller and the work per root is bounded by the degeneracy, not by its degree.
+ * <p>
+ * With parallelism the roots are spread over the pool. Besides the oriented copy of the edges only a long per node
+ * is kept.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class CliqueCounter<N extends Node> {
+
+    private final CSRGraph<N> g;
+    private final int k;
+    private final long[] localCounts;
+
+    public CliqueCounter(final CSRGraph<N> g, int k, boolean parallelism) {
+        this(g, k, parallelism ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Counts the local k-cliques of every node.
+     *
+     * @param k    clique size, at least 3.
+     * @param pool where to run, or null to run on the calling thread.
+     */
+    public CliqueCounter(final CSRGraph<N> g, int k, ForkJoinPool pool) {
+        this.g = g;
+        this.k = k;
+        Oriented oriented = new Oriented(g, k);
+        if (pool == null) {
+            long[] counts = new long[g.nodeCount()];
+            Oriented.Search search = oriented.new Search((u, found) -> counts[u] += found, null);
+            for (int r = 0; r < oriented.roots(); r++)
+                search.root(r);
+            this.localCounts = counts;
+            return;
+        }
+        AtomicLongArray counts = new AtomicLongArray(g.nodeCount());
+        pool.submit(() -> IntStream.range(0, oriented.roots()).parallel().forEach(r ->
+                oriented.new Search(counts::addAndGet, null).root(r))).join();
+        this.localCounts = new long[counts.length()];
+        for (int u = 0; u < this.localCounts.length; u++)
+            this.localCounts[u] = counts.get(u);
+    }
+
+    /**
+     * Pushes every k-clique to a visitor as soon as it's found, nothing gets stored. With a pool the visitor gets
+     * called from several threads at once, so it has to be thread safe.
+     *
+     * @param k    clique size, at least 3.
+     * @param pool where to run, or null to run on the calling thread.
+     * @return true if every clique was visited, false if the visitor stopped early.
+     */
+    public static boolean forEachClique(CSRGraph<?> g, int k, ForkJoinPool pool, CliqueVisitor visitor) {
+        Oriented oriented = new Oriented(g, k);
+        if (pool == null) {
+            Oriented.Search search = oriented.new Search(null, visitor);
+            for (int r = 0; r < oriented.roots(); r++)
+                if (!search.root(r))
+                    return false;
+            return true;
+        }
+        AtomicBoolean stopped = new AtomicBoolean();
+        CliqueVisitor guarded = clique -> {
+            if (stopped.get())
+                return false;
+            if (visitor.visit(clique))
+                return true;
+            stopped.set(true);
+            return false;
+        };
+        pool.submit(() -> IntStream.range(0, oriented.roots()).parallel().forEach(r -> {
+            if (!stopped.get())
+                oriented.new Search(null, guarded).root(r);
+        })).join();
+        return !stopped.get();
+    }
+
+    @FunctionalInterface
+    private interface CountSink {
+        void add(int u, long found);
+    }
+
+    /**
+     * The edges pointed from earlier to later in degeneracy order, as a CSR in rank space like {@link ForwardEngine}
+     * keeps them.
+     */
+    private static final class Oriented {
+        private final int k;
+        /**
+         * rank to node index.
+         */
+        private final int[] order;
+        private final int[] offsets;
+        private final int[] neighbours;
+
+        Oriented(CSRGraph<?> g, int k) {
+            if (k < 3)
+                throw new IllegalArgumentException("Cliques need at least 3 nodes here, got " + k);
+            this.k = k;
+            int n = g.nodeCount();
+            int[] gOffsets = g.getOffsets();
+            int[] gNeighbours = g.getNeighbours();
+            this.order = g.degeneracyOrder();
+            int[] rank = new int[n];
+            for (int r = 0; r < n; r++)
+                rank[this.order[r]] = r;
+            this.offsets = new int[n + 1];
+            this.neighbours = new int[gNeighbours.length / 2];
+            int write = 0;
+            for (int r = 0; r < n; r++) {
+                int u = this.order[r];
+                for (int i = gOffsets[u]; i < gOffsets[u + 1]; i++)
+                    if (rank[gNeighbours[i]] > r)
+                        this.neighbours[write++] = rank[gNeighbours[i]];
+                Arrays.sort(this.neighbours, this.offsets[r], write);
+                this.offsets[r + 1] = write;
+            }
+        }
+
+        int roots() {
+            return this.order.length;
+        }
+
+        /**
+         * Buffers for one thread. Either counts into a sink or hands cliques to a visitor.
+         */
+        private final class Search {
+            private final CountSink sink;
+            private final CliqueVisitor visitor;
+            /**
+             * Ranks of the clique so far.
+             */
+            private final int[] stack;
+            /**
+             * Candidates per level, each the intersection of the one above with a row.
+             */
+            private final int[][] levels;
+            private final int[] clique;
+
+            Search(CountSink sink, CliqueVisitor visitor) {
+                this.sink = sink;
+                this.visitor = visitor;
+                this.stack = new int[k];
+                this.levels = new int[k][];
+                this.clique = new int[k];
+            }
+
+            /**
+             * Finds every clique whose first node in rank order is r.
+             *
+             * @return false if the visitor stopped early.
+             */
+            boolean root(int r) {
+                int width = offsets[r + 1] - offsets[r];
+                if (width < k - 1)
+                    return true;
+                for (int level = 1; level < k; level++)
+                    if (this.levels[level] == null || this.levels[level].length < width)
+                        this.levels[level] = new int[width];
+                this.stack[0] = r;
+                System.arraycopy(neighbours, offsets[r], this.levels[1], 0, width);
+                return expand(1, width);
+            }
+
+            /**
+             * @param depth nodes in the clique so far, the candidates to extend it with are levels[depth].
+             * @param size  number of candidates.
+             */
+            private boolean expand(int depth, int size) {
+                int[] candidates = this.levels[depth];
+                if (depth == k - 1)
+                    return leaf(candidates, size);
+                int needed = k - depth - 1;
+                for (int i = 0; i + needed < size; i++) {
+                    int v = candidates[i];
+                    int found = Intersections.intersect(candidates, i + 1, size,
+                            neighbours, offsets[v], offsets[v + 1], this.levels[depth + 1], 0);
+                    if (found < needed)
+                        continue;
+                    this.stack[depth] = v;
+                    if (!expand(depth + 1, found))
+                        return false;
+                }
+                return true;
+            }
+
+            /**
+             * Every candidate completes the clique on the stack.
+             */
+            private boolean leaf(int[] candidates, int size) {
+                if (size == 0)
+                    return true;
+                if (this.visitor == null) {
+                    for (int j = 0; j < k - 1; j++)
+                        this.sink.add(order[this.stack[j]], size);
+                    for (int i = 0; i < size; i++)
+                        this.sink.add(order[candidates[i]], 1);
+                    return true;
+                }
+                for (int j = 0; j < k - 1; j++)
+                    this.clique[j] = order[this.stack[j]];
+                for (int i = 0; i < size; i++) {
+                    this.clique[k - 1] = order[candidates[i]];
+                    if (!this.visitor.visit(this.clique))
+                        return false;
+                }
+                return true;
+            }
+        }
+    }
+
+    public CSRGraph<N> getGraph() {
+        return this.g;
+    }
+
+    public int getK() {
+        return this.k;
+    }
+
+    /**
+     * @return number of k-cliques per node index of the graph. Don't modify it.
+     */
+    public long[] getLocalCounts() {
+        return this.localCounts;
+    }
+
+    /**
+     * @param n a node of the graph.
+     * @return number of k-cliques n is in.
+     */
+    public long countLocalCliques(N n) {
+        return this.localCounts[indexOf(n)];
+    }
+
+    /**
+     * Every clique is a local clique of exactly k nodes.
+     *
+     * @return number of k-cliques.
+     */
+    public long countCliques() {
+        long sum = 0;
+        for (long count : this.localCounts)
+            sum += count;
+        return sum / this.k;
+    }
+
+    /**
+     * The k-clique version of {@link TriangleCounter#clusteringCoefficient(Node)}: the local cliques of n over the
+     * number of (k - 1)-subsets of its neighbours, each of which could have made a clique with it. For k = 3 it's the
+     * clustering coefficient.
+     *
+     * @return clique density of n, -1 if it has less than k - 1 neighbours.
+     */
+    public double cliqueDensity(N n) {
+        int u = indexOf(n);
+        int degree = this.g.degree(u);
+        if (degree < this.k - 1)
+            return -1d;
+        // degree choose k - 1, as a double since it overflows quickly
+        double subsets = 1;
+        for (int i = 0; i < this.k - 1; i++)
+            subsets = subsets * (degree - i) / (i + 1);
+        return this.localCounts[u] / subsets;
+    }
+
+    private int indexOf(N n) {
+        int u = this.g.indexOf(n);
+        if (u < 0)
+            throw new IllegalArgumentException("Node " + n + " is not an element of this graph.");
+        return u;
+    }
+}
@@ -0,0 +1,14 @@
+package com.trianglez;
+
+/**
+ * Receives k-cliques as node indices of a {@link com.trianglez.graph.CSRGraph}, see {@link CliqueCounter}.
+ */
+@FunctionalInterface
+public interface CliqueVisitor {
+    /**
+     * @param clique the k node indices of the clique, in no particular order. The array gets reused for the next
+     *               clique, so copy it to keep it.
+     * @return true to keep going, false to stop the enumeration early.
+     */
+    boolean visit(int[] clique);
+}
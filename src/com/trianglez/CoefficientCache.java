@@ -0,0 +1,179 @@
+package com.trianglez;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.Node;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Answers clustering coefficient queries over subsets of the nodes of a {@link TriangleCounter}, e.g. everything in
+ * one category or a range of node indices, and remembers the answers. Each subset is one pass over its nodes the first
+ * time and a map lookup after that. At most maxEntries subsets are kept, the least recently asked for is dropped first.
+ * <p>
+ * Only for the static {@link TriangleCounter}: a counter never changes after it's constructed, so nothing in here goes
+ * stale, and the cache doesn't listen to anything. A {@link DynamicTriangleCounter} doesn't tell anyone about its
+ * updates, so for a graph that keeps changing use a new cache over every {@link DynamicTriangleCounter#snapshot()}, or
+ * {@link #clear()} this one after changes.
+ * <p>
+ * A key stands for its subset. Asking again with the same key gets the remembered answer whatever subset is passed,
+ * so a key must only ever be used with one subset.
+ * <p>
+ * Thread safe. Two threads missing on the same subset at once both compute it.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class CoefficientCache<N extends Node> {
+
+    private final TriangleCounter<N> counter;
+    private final LinkedHashMap<Object, Aggregate> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxEntries most subsets to remember, at least 1.
+     */
+    public CoefficientCache(TriangleCounter<N> counter, int maxEntries) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("Need room for at least one entry, got " + maxEntries);
+        this.counter = counter;
+        this.entries = new LinkedHashMap<Object, Aggregate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Aggregate> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Both coefficients of a subset.
+     */
+    private static final class Aggregate {
+        private final double avg;
+        private final double global;
+
+        Aggregate(double avg, double global) {
+            this.avg = avg;
+            this.global = global;
+        }
+    }
+
+    /**
+     * Key for a range of node indices, so it can't be mistaken for a key passed in by the caller.
+     */
+    private static final class Range {
+        private final int from;
+        private final int to;
+
+        Range(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Range && ((Range) obj).from == this.from && ((Range) obj).to == this.to;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.from + this.to;
+        }
+    }
+
+    /**
+     * @param key    names the subset, e.g. a category. Has to have a proper equals and hashCode, and always go with the
+     *               same subset.
+     * @param subset which nodes are in it. Only called on a miss, ignored when key is remembered.
+     * @return average clustering coefficient of the nodes of the subset with at least two neighbours, -1 if there
+     * aren't any.
+     */
+    public double avgClusteringCoefficient(Object key, Predicate<N> subset) {
+        return get(key, subset).avg;
+    }
+
+    /**
+     * Same definition as {@link TriangleCounter#globalClusteringCoefficient()}, over the nodes of the subset. Same
+     * contract for key and subset as {@link #avgClusteringCoefficient(Object, Predicate)}.
+     *
+     * @return global clustering coefficient of the subset, -1 if its nodes have no wedges.
+     */
+    public double globalClusteringCoefficient(Object key, Predicate<N> subset) {
+        return get(key, subset).global;
+    }
+
+    /**
+     * @param from first node index, inclusive.
+     * @param to   last node index, exclusive.
+     */
+    public double avgClusteringCoefficient(int from, int to) {
+        return get(from, to).avg;
+    }
+
+    public double globalClusteringCoefficient(int from, int to) {
+        return get(from, to).global;
+    }
+
+    private Aggregate get(Object key, Predicate<N> subset) {
+        Aggregate cached = lookup(key);
+        if (cached != null)
+            return cached;
+        CSRGraph<N> g = this.counter.getGraph();
+        return store(key, aggregate(u -> subset.test(g.node(u)), 0, g.nodeCount()));
+    }
+
+    private Aggregate get(int from, int to) {
+        if (from < 0 || to > this.counter.getGraph().nodeCount() || from > to)
+            throw new IllegalArgumentException("Not a range of node indices: " + from + " until " + to);
+        Range key = new Range(from, to);
+        Aggregate cached = lookup(key);
+        if (cached != null)
+            return cached;
+        return store(key, aggregate(u -> true, from, to));
+    }
+
+    private synchronized Aggregate lookup(Object key) {
+        Aggregate cached = this.entries.get(key);
+        if (cached != null)
+            this.hits++;
+        else
+            this.misses++;
+        return cached;
+    }
+
+    private synchronized Aggregate store(Object key, Aggregate aggregate) {
+        this.entries.put(key, aggregate);
+        return aggregate;
+    }
+
+    private Aggregate aggregate(IntPredicate included, int from, int to) {
+        CSRGraph<N> g = this.counter.getGraph();
+        long[] localCounts = this.counter.getLocalCounts();
+        return new Aggregate(Coefficients.average(from, to, included, g::degree, u -> localCounts[u]),
+                Coefficients.global(from, to, included, g::degree, u -> localCounts[u]));
+    }
+
+    /**
+     * @return number of subsets remembered right now.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return queries answered without going over any nodes.
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+}
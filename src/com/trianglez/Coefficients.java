@@ -0,0 +1,90 @@
+package com.trianglez;
+
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The clustering coefficient math shared by every counter, over a degree and a local triangle count per node index.
+ * Counts are doubles so estimates fit as well.
+ */
+final class Coefficients {
+
+    private Coefficients() {
+    }
+
+    /**
+     * @return 2 * triangles / (degree * (degree - 1)), or -1 if degree is less than 2.
+     */
+    static double local(long degree, double triangles) {
+        if (degree < 2)
+            return -1d;
+        double ki = degree;
+        return 2d * triangles / (ki * (ki - 1d));
+    }
+
+    /**
+     * @return sum of local counts over the sum of degree * (degree - 1), over the nodes 0 until n. -1 if that's no
+     * wedges at all.
+     */
+    static double global(int n, IntUnaryOperator degree, IntToDoubleFunction triangles) {
+        return global(0, n, u -> true, degree, triangles);
+    }
+
+    /**
+     * Same as {@link #global(int, IntUnaryOperator, IntToDoubleFunction)} with only the included nodes.
+     */
+    static double global(int n, IntPredicate included, IntUnaryOperator degree, IntToDoubleFunction triangles) {
+        return global(0, n, included, degree, triangles);
+    }
+
+    /**
+     * Same as {@link #global(int, IntUnaryOperator, IntToDoubleFunction)} with only the included nodes from until to.
+     */
+    static double global(int from, int to, IntPredicate included, IntUnaryOperator degree,
+                         IntToDoubleFunction triangles) {
+        double top = 0;
+        long bottom = 0;
+        for (int u = from; u < to; u++) {
+            if (included.test(u)) {
+                long x = degree.applyAsInt(u);
+                top += triangles.applyAsDouble(u);
+                bottom += x * (x - 1);
+            }
+        }
+        return bottom == 0 ? -1 : top / bottom;
+    }
+
+    /**
+     * @return average {@link #local} over the nodes 0 until n with at least two neighbours, -1 if there are none.
+     */
+    static double average(int n, IntUnaryOperator degree, IntToDoubleFunction triangles) {
+        return average(0, n, u -> true, degree, triangles);
+    }
+
+    /**
+     * Same as {@link #average(int, IntUnaryOperator, IntToDoubleFunction)} with only the included nodes.
+     */
+    static double average(int n, IntPredicate included, IntUnaryOperator degree, IntToDoubleFunction triangles) {
+        return average(0, n, included, degree, triangles);
+    }
+
+    /**
+     * Same as {@link #average(int, IntUnaryOperator, IntToDoubleFunction)} with only the included nodes from until to.
+     */
+    static double average(int from, int to, IntPredicate included, IntUnaryOperator degree,
+                          IntToDoubleFunction triangles) {
+        double sum = 0;
+        int counted = 0;
+        for (int u = from; u < to; u++) {
+            if (!included.test(u))
+                continue;
+            double c = local(degree.applyAsInt(u), triangles.applyAsDouble(u));
+            if (c != -1d) {
+                sum += c;
+                counted++;
+            }
+        }
+        return counted == 0 ? -1 : sum / counted;
+    }
+}
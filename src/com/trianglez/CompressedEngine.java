@@ -0,0 +1,136 @@
+package com.trianglez;
+
+import com.trianglez.graph.CompressedGraph;
+
+/**
+ * {@link NodeIteratorEngine} with ownerOnly on a {@link CompressedGraph}. Each range of positions decodes the part of
+ * the root's row it needs, from its first position to the end of the row, into a buffer of its thread, since every
+ * position walks the rest of it again. The part below the root and the positions before the range are skipped with
+ * the skip table. The rows of its neighbours are only ever gone through with a {@link CompressedGraph.Cursor}, which
+ * skips the blocks between the values the root's row asks for. Root slots are node indices.
+ */
+class CompressedEngine implements TriangleEngine {
+    private final CompressedGraph<?> g;
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * What a thread reuses from range to range.
+     */
+    private static final class Scratch {
+        private final CompressedGraph<?>.Cursor root;
+        private final CompressedGraph<?>.Cursor other;
+        private int[] row = new int[64];
+
+        Scratch(CompressedGraph<?> g) {
+            this.root = g.new Cursor();
+            this.other = g.new Cursor();
+        }
+    }
+
+    CompressedEngine(CompressedGraph<?> g) {
+        this.g = g;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(g));
+    }
+
+    @Override
+    public int roots() {
+        return this.g.nodeCount();
+    }
+
+    /**
+     * Neighbours above start, found with the skip table instead of decoding the row.
+     */
+    @Override
+    public int width(int start) {
+        CompressedGraph<?>.Cursor cursor = this.scratch.get().root;
+        cursor.reset(start);
+        cursor.advanceTo(start + 1);
+        return cursor.degree() - cursor.position();
+    }
+
+    @Override
+    public long cost(int start) {
+        long w = this.g.degree(start);
+        return w * w + 1;
+    }
+
+    /**
+     * Decodes positions from until the end of the row of start into the thread's buffer.
+     *
+     * @return number of values decoded.
+     */
+    private int tail(Scratch scratch, int start, int from) {
+        CompressedGraph<?>.Cursor cursor = scratch.root;
+        cursor.reset(start);
+        cursor.advanceTo(start + 1);
+        int position = cursor.position() + from;
+        int length = cursor.degree() - position;
+        if (length <= 0)
+            return 0;
+        if (scratch.row.length < length)
+            scratch.row = new int[Math.max(length, 2 * scratch.row.length)];
+        scratch.row[0] = cursor.seek(position);
+        for (int i = 1; i < length; i++)
+            scratch.row[i] = cursor.next();
+        return length;
+    }
+
+    @Override
+    public long visitCounted(int start, int from, int to, TriangleVisitor visitor) {
+        Scratch scratch = this.scratch.get();
+        int end = tail(scratch, start, from);
+        int[] row = scratch.row;
+        CompressedGraph<?>.Cursor cursor = scratch.other;
+        long visited = 0;
+        for (int i = 0; i < to - from && i < end - 1; i++) {
+            int first = row[i];
+            cursor.reset(first);
+            int k = i + 1;
+            while (k < end) {
+                int found = cursor.advanceTo(row[k]);
+                if (found == Integer.MAX_VALUE)
+                    break;
+                // the root's row catches up, found may well be in it a few values on
+                while (k < end && row[k] < found)
+                    k++;
+                if (k < end && row[k] == found) {
+                    visited++;
+                    if (!visitor.visit(start, first, found))
+                        return -1 - visited;
+                    k++;
+                }
+            }
+        }
+        return visited;
+    }
+
+    @Override
+    public long count(int start, int from, int to) {
+        Scratch scratch = this.scratch.get();
+        int end = tail(scratch, start, from);
+        int[] row = scratch.row;
+        CompressedGraph<?>.Cursor cursor = scratch.other;
+        long count = 0;
+        for (int i = 0; i < to - from && i < end - 1; i++) {
+            cursor.reset(row[i]);
+            int k = i + 1;
+            while (k < end) {
+                int found = cursor.advanceTo(row[k]);
+                if (found == Integer.MAX_VALUE)
+                    break;
+                while (k < end && row[k] < found)
+                    k++;
+                if (k < end && row[k] == found) {
+                    count++;
+                    k++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean unique() {
+        return true;
+    }
+}
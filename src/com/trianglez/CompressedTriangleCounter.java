@@ -0,0 +1,144 @@
+package com.trianglez;
+
+import com.trianglez.graph.CompressedGraph;
+import com.trianglez.node.Node;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link TriangleCounter} for a {@link CompressedGraph}, so graphs whose int rows don't fit on the heap can still be
+ * counted, as long as the graph is encoded straight from its edges with
+ * {@link com.trianglez.readers.FBGraphReader#readCompressed} or {@link CompressedGraph#of(
+ * com.trianglez.graph.PartitionedGraph.EdgeSource, java.util.function.IntFunction, long)} and not from a
+ * {@link com.trianglez.graph.CSRGraph}. Every triangle is found once from its lowest index corner, by intersecting the
+ * rest of that corner's row with the compressed rows of its neighbours, see {@link CompressedEngine}. Since that's a
+ * node iterator, the order of the indices matters for speed as well as for size:
+ * {@link com.trianglez.graph.Reordering.Strategy#DEGENERACY} puts the hubs last, so they have few neighbours above
+ * them, and keeps the gaps small.
+ * <p>
+ * Counts are the same as the in-memory counters give.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class CompressedTriangleCounter<N extends Node> {
+
+    private final CompressedGraph<N> g;
+    private final long[] localCounts;
+
+    public CompressedTriangleCounter(final CompressedGraph<N> g, boolean parallelism) {
+        this(g, parallelism ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Counts the local triangles of every node.
+     *
+     * @param pool where to run, or null to run on the calling thread.
+     */
+    public CompressedTriangleCounter(final CompressedGraph<N> g, ForkJoinPool pool) {
+        this.g = g;
+        TriangleEngine engine = new CompressedEngine(g);
+        if (pool == null) {
+            long[] counts = new long[g.nodeCount()];
+            BalancedScheduler.run(engine, null, (root, from, to) -> engine.visit(root, from, to, (a, b, c) -> {
+                counts[a]++;
+                counts[b]++;
+                counts[c]++;
+                return true;
+            }));
+            this.localCounts = counts;
+            return;
+        }
+        AtomicLongArray counts = new AtomicLongArray(g.nodeCount());
+        BalancedScheduler.run(engine, pool, (root, from, to) -> engine.visit(root, from, to, (a, b, c) -> {
+            counts.incrementAndGet(a);
+            counts.incrementAndGet(b);
+            counts.incrementAndGet(c);
+            return true;
+        }));
+        this.localCounts = new long[counts.length()];
+        for (int u = 0; u < this.localCounts.length; u++)
+            this.localCounts[u] = counts.get(u);
+    }
+
+    /**
+     * Pushes every unique triangle to a visitor as soon as it's found. With a pool the visitor gets called from several
+     * threads at once, so it has to be thread safe.
+     *
+     * @param pool where to run, or null to run on the calling thread.
+     * @return true if every triangle was visited, false if the visitor stopped early.
+     */
+    public static boolean forEachTriangle(CompressedGraph<?> g, ForkJoinPool pool, TriangleVisitor visitor) {
+        TriangleEngine engine = new CompressedEngine(g);
+        return BalancedScheduler.run(engine, pool, (root, from, to) -> engine.visit(root, from, to, visitor));
+    }
+
+    /**
+     * Number of triangles only, without the per node counts.
+     */
+    public static long countTriangles(CompressedGraph<?> g) {
+        TriangleEngine engine = new CompressedEngine(g);
+        long count = 0;
+        for (int r = 0; r < engine.roots(); r++)
+            count += engine.count(r, 0, engine.width(r));
+        return count;
+    }
+
+    public CompressedGraph<N> getGraph() {
+        return this.g;
+    }
+
+    /**
+     * @return number of triangles per node index. Don't modify it.
+     */
+    public long[] getLocalCounts() {
+        return this.localCounts;
+    }
+
+    public long countLocalTriangles() {
+        long sum = 0;
+        for (long count : this.localCounts)
+            sum += count;
+        return sum;
+    }
+
+    public long countLocalTriangles(N n) {
+        return this.localCounts[indexOf(n)];
+    }
+
+    public long countTriangles() {
+        return countLocalTriangles() / 3;
+    }
+
+    /**
+     * Same as {@link TriangleCounter#clusteringCoefficient(Node)}.
+     */
+    public double clusteringCoefficient(N n) {
+        return clusteringCoefficient(indexOf(n));
+    }
+
+    private double clusteringCoefficient(int u) {
+        return Coefficients.local(this.g.degree(u), this.localCounts[u]);
+    }
+
+    /**
+     * Same as {@link TriangleCounter#globalClusteringCoefficient()}.
+     */
+    public double globalClusteringCoefficient() {
+        return Coefficients.global(this.g.nodeCount(), this.g::degree, u -> this.localCounts[u]);
+    }
+
+    /**
+     * Same as {@link TriangleCounter#avgClusteringCoefficient()}.
+     */
+    public double avgClusteringCoefficient() {
+        return Coefficients.average(this.g.nodeCount(), this.g::degree, u -> this.localCounts[u]);
+    }
+
+    private int indexOf(N n) {
+        int u = this.g.indexOf(n);
+        if (u < 0)
+            throw new IllegalArgumentException("Node " + n + " is not an element of this graph.");
+        return u;
+    }
+}
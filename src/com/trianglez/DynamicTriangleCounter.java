@@ -0,0 +1,302 @@
+package com.trianglez;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.CSRGraphBuilder;
+import com.trianglez.graph.HashNodeDictionary;
+import com.trianglez.graph.Intersections;
+import com.trianglez.graph.NodeDictionary;
+import com.trianglez.node.Node;
+
+import java.util.Arrays;
+
+/**
+ * Keeps local triangle counts and clustering coefficients up to date while edges get added and removed, so nothing has
+ * to be recomputed from scratch when the graph changes. An update only looks at the common neighbours of its two
+ * endpoints, found with {@link Intersections} on their sorted rows, so it costs about min(deg u, deg v) steps no matter
+ * how big the rest of the graph is.
+ * <p>
+ * Rows are kept as sorted growable int arrays, so inserting into a row shifts it by one with a single array copy.
+ * Nodes are never removed, one whose edges are all gone just has degree 0.
+ * <p>
+ * Not thread safe, updates and queries have to come from one thread or be synchronized outside.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class DynamicTriangleCounter<N extends Node> {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final NodeDictionary<N> dictionary;
+    private int[][] rows;
+    private int[] degrees;
+    private long[] localCounts;
+    private long edgeCount;
+    private long triangleCount;
+    /**
+     * Sum of d * (d - 1) over every node, the bottom of the global clustering coefficient.
+     */
+    private long wedgeSum;
+    /**
+     * Sum of the clustering coefficients of the nodes with at least two neighbours, and how many of those there are.
+     * Only the nodes an update touches get taken out and put back in.
+     */
+    private double coefficientSum;
+    private int coefficientNodes;
+    /**
+     * Common neighbours of the edge being updated.
+     */
+    private int[] scratch = new int[16];
+
+    public DynamicTriangleCounter() {
+        this(16);
+    }
+
+    /**
+     * @param expectedNodes a sizing hint.
+     */
+    public DynamicTriangleCounter(int expectedNodes) {
+        this.dictionary = new HashNodeDictionary<>(expectedNodes);
+        int capacity = Math.max(16, expectedNodes);
+        this.rows = new int[capacity][];
+        this.degrees = new int[capacity];
+        this.localCounts = new long[capacity];
+    }
+
+    /**
+     * Starts from a graph whose local triangles were already counted, so only the changes after that cost anything.
+     *
+     * @param counter a counter that ran on the starting graph.
+     */
+    public DynamicTriangleCounter(TriangleCounter<N> counter) {
+        this(counter.getGraph().nodeCount());
+        CSRGraph<N> g = counter.getGraph();
+        int[] offsets = g.getOffsets();
+        int[] neighbours = g.getNeighbours();
+        for (int u = 0; u < g.nodeCount(); u++) {
+            this.dictionary.intern(g.node(u));
+            this.rows[u] = Arrays.copyOfRange(neighbours, offsets[u], offsets[u + 1]);
+            this.degrees[u] = this.rows[u].length;
+            this.wedgeSum += (long) this.degrees[u] * (this.degrees[u] - 1);
+        }
+        System.arraycopy(counter.getLocalCounts(), 0, this.localCounts, 0, g.nodeCount());
+        this.edgeCount = g.edgeCount();
+        this.triangleCount = counter.countTriangles();
+        for (int u = 0; u < g.nodeCount(); u++)
+            addCoefficient(u, 1);
+    }
+
+    /**
+     * Adds an edge, adding its endpoints first if they're new.
+     *
+     * @return false if the edge was already there, nothing changes then.
+     * @throws IllegalArgumentException for a self loop.
+     */
+    public boolean addEdge(N u, N v) {
+        if (u.equals(v))
+            throw new IllegalArgumentException("Self loops aren't allowed: " + u);
+        int a = addNode(u);
+        int b = addNode(v);
+        if (Arrays.binarySearch(this.rows[a], 0, this.degrees[a], b) >= 0)
+            return false;
+        addCoefficient(a, -1);
+        addCoefficient(b, -1);
+        updateTriangles(a, b, 1);
+        this.wedgeSum += 2L * this.degrees[a] + 2L * this.degrees[b];
+        insert(a, b);
+        insert(b, a);
+        addCoefficient(a, 1);
+        addCoefficient(b, 1);
+        this.edgeCount++;
+        return true;
+    }
+
+    /**
+     * @return false if there was no such edge, nothing changes then.
+     */
+    public boolean removeEdge(N u, N v) {
+        int a = this.dictionary.indexOf(u);
+        int b = this.dictionary.indexOf(v);
+        if (a < 0 || b < 0 || a == b || Arrays.binarySearch(this.rows[a], 0, this.degrees[a], b) < 0)
+            return false;
+        addCoefficient(a, -1);
+        addCoefficient(b, -1);
+        remove(a, b);
+        remove(b, a);
+        this.wedgeSum -= 2L * this.degrees[a] + 2L * this.degrees[b];
+        updateTriangles(a, b, -1);
+        addCoefficient(a, 1);
+        addCoefficient(b, 1);
+        this.edgeCount--;
+        return true;
+    }
+
+    /**
+     * Every common neighbour w of a and b makes one triangle (a, b, w) that the edge closes or opens.
+     *
+     * @param delta 1 when the edge gets added, -1 when it was removed.
+     */
+    private void updateTriangles(int a, int b, int delta) {
+        int most = Math.min(this.degrees[a], this.degrees[b]);
+        if (this.scratch.length < most)
+            this.scratch = new int[Math.max(most, 2 * this.scratch.length)];
+        int common = Intersections.intersect(this.rows[a], 0, this.degrees[a], this.rows[b], 0, this.degrees[b],
+                this.scratch, 0);
+        for (int k = 0; k < common; k++) {
+            int w = this.scratch[k];
+            addCoefficient(w, -1);
+            this.localCounts[w] += delta;
+            addCoefficient(w, 1);
+        }
+        this.localCounts[a] += delta * common;
+        this.localCounts[b] += delta * common;
+        this.triangleCount += delta * common;
+    }
+
+    /**
+     * @param sign 1 to add the current coefficient of u to the sum, -1 to take it out.
+     */
+    private void addCoefficient(int u, int sign) {
+        double c = clusteringCoefficient(u);
+        if (c != -1d) {
+            this.coefficientSum += sign * c;
+            this.coefficientNodes += sign;
+        }
+    }
+
+    private int addNode(N n) {
+        int u = this.dictionary.intern(n);
+        if (u == this.rows.length) {
+            int capacity = this.rows.length * 2;
+            this.rows = Arrays.copyOf(this.rows, capacity);
+            this.degrees = Arrays.copyOf(this.degrees, capacity);
+            this.localCounts = Arrays.copyOf(this.localCounts, capacity);
+        }
+        if (this.rows[u] == null)
+            this.rows[u] = EMPTY;
+        return u;
+    }
+
+    private void insert(int u, int v) {
+        int[] row = this.rows[u];
+        int degree = this.degrees[u];
+        int at = -Arrays.binarySearch(row, 0, degree, v) - 1;
+        if (degree == row.length) {
+            int[] grown = new int[Math.max(4, degree + (degree >> 1))];
+            System.arraycopy(row, 0, grown, 0, at);
+            System.arraycopy(row, at, grown, at + 1, degree - at);
+            row = grown;
+            this.rows[u] = row;
+        } else {
+            System.arraycopy(row, at, row, at + 1, degree - at);
+        }
+        row[at] = v;
+        this.degrees[u] = degree + 1;
+    }
+
+    private void remove(int u, int v) {
+        int[] row = this.rows[u];
+        int degree = this.degrees[u];
+        int at = Arrays.binarySearch(row, 0, degree, v);
+        System.arraycopy(row, at + 1, row, at, degree - at - 1);
+        this.degrees[u] = degree - 1;
+    }
+
+    public boolean hasEdge(N u, N v) {
+        int a = this.dictionary.indexOf(u);
+        int b = this.dictionary.indexOf(v);
+        return a >= 0 && b >= 0 && Arrays.binarySearch(this.rows[a], 0, this.degrees[a], b) >= 0;
+    }
+
+    /**
+     * @return number of nodes ever seen, including ones that lost all their edges.
+     */
+    public int nodeCount() {
+        return this.dictionary.size();
+    }
+
+    public long edgeCount() {
+        return this.edgeCount;
+    }
+
+    /**
+     * @return degree of n, 0 if it was never seen.
+     */
+    public int degree(N n) {
+        int u = this.dictionary.indexOf(n);
+        return u < 0 ? 0 : this.degrees[u];
+    }
+
+    /**
+     * @return Count of all local triangles.
+     */
+    public long countLocalTriangles() {
+        return 3 * this.triangleCount;
+    }
+
+    /**
+     * @param n a node.
+     * @return number of triangles n is a corner of, 0 if it was never seen.
+     */
+    public long countLocalTriangles(N n) {
+        int u = this.dictionary.indexOf(n);
+        return u < 0 ? 0 : this.localCounts[u];
+    }
+
+    /**
+     * @return Count of unique triangles.
+     */
+    public long countTriangles() {
+        return this.triangleCount;
+    }
+
+    /**
+     * Same as {@link TriangleCounter#clusteringCoefficient(Node)}.
+     *
+     * @return clustering coefficient of node n, -1 if it has less than two neighbours.
+     */
+    public double clusteringCoefficient(N n) {
+        int u = this.dictionary.indexOf(n);
+        return u < 0 ? -1d : clusteringCoefficient(u);
+    }
+
+    private double clusteringCoefficient(int u) {
+        return Coefficients.local(this.degrees[u], this.localCounts[u]);
+    }
+
+    /**
+     * Kept up to date with every edge, so this doesn't look at the nodes at all.
+     *
+     * @return global clustering coefficient.
+     */
+    public double globalClusteringCoefficient() {
+        return (double) countLocalTriangles() / this.wedgeSum;
+    }
+
+    /**
+     * Kept up to date like the global one, so this doesn't look at the nodes either. The sum picks up a little
+     * rounding error with every update.
+     *
+     * @return average clustering coefficient of nodes with at least two neighbours.
+     */
+    public double avgClusteringCoefficient() {
+        return this.coefficientNodes == 0 ? -1 : this.coefficientSum / this.coefficientNodes;
+    }
+
+    /**
+     * Freezes the current state, e.g. to enumerate the triangles or write a
+     * {@link com.trianglez.readers.FBGraphSnapshot}. Node indices stay the same.
+     *
+     * @return a counter over a copy of the current graph with the current counts, nothing gets enumerated.
+     */
+    public TriangleCounter<N> snapshot() {
+        int n = nodeCount();
+        CSRGraphBuilder<N> builder = new CSRGraphBuilder<>(n);
+        for (int u = 0; u < n; u++)
+            builder.addNode(this.dictionary.node(u));
+        for (int u = 0; u < n; u++)
+            for (int i = 0; i < this.degrees[u]; i++)
+                if (this.rows[u][i] > u)
+                    builder.putEdge(u, this.rows[u][i]);
+        return new TriangleCounter<>(builder.build(), Arrays.copyOf(this.localCounts, n));
+    }
+}
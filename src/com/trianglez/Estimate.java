@@ -0,0 +1,93 @@
+package com.trianglez;
+
+/**
+ * An approximate value with a 95% confidence interval around it, as given out by {@link TriangleEstimator}.
+ */
+public class Estimate {
+
+    /**
+     * Two sided 95% quantile of the standard normal distribution.
+     */
+    static final double Z_95 = 1.959964;
+
+    private final double value;
+    private final double low;
+    private final double high;
+    private final long samples;
+
+    Estimate(double value, double low, double high, long samples) {
+        this.value = value;
+        this.low = low;
+        this.high = high;
+        this.samples = samples;
+    }
+
+    /**
+     * The Wilson score interval of a binomial proportion, which unlike the plain normal approximation still has a width
+     * when every sample came out the same.
+     *
+     * @param hits    samples that came out true.
+     * @param samples samples taken.
+     * @param scale   what a proportion of 1 stands for, e.g. the number of wedges when estimating closed wedges.
+     */
+    static Estimate ofProportion(long hits, long samples, double scale) {
+        if (samples == 0)
+            return new Estimate(Double.NaN, 0, scale, 0);
+        double n = samples;
+        double p = hits / n;
+        double z2 = Z_95 * Z_95;
+        double center = (p + z2 / (2 * n)) / (1 + z2 / n);
+        double margin = Z_95 / (1 + z2 / n) * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n));
+        return new Estimate(p * scale, Math.max(0, center - margin) * scale, Math.min(1, center + margin) * scale,
+                samples);
+    }
+
+    /**
+     * From independent repeats of an unbiased estimator, using the sample standard deviation of their mean.
+     */
+    static Estimate ofTrials(double[] values) {
+        double mean = 0;
+        for (double v : values)
+            mean += v;
+        mean /= values.length;
+        double squares = 0;
+        for (double v : values)
+            squares += (v - mean) * (v - mean);
+        double margin = Z_95 * Math.sqrt(squares / (values.length - 1) / values.length);
+        return new Estimate(mean, Math.max(0, mean - margin), mean + margin, values.length);
+    }
+
+    public double getValue() {
+        return this.value;
+    }
+
+    /**
+     * @return lower end of the 95% confidence interval.
+     */
+    public double getLow() {
+        return this.low;
+    }
+
+    /**
+     * @return upper end of the 95% confidence interval.
+     */
+    public double getHigh() {
+        return this.high;
+    }
+
+    /**
+     * @return how many samples or trials this is based on.
+     */
+    public long getSamples() {
+        return this.samples;
+    }
+
+    public boolean contains(double exact) {
+        return exact >= this.low && exact <= this.high;
+    }
+
+    @Override
+    public String toString() {
+        return this.value + " [" + this.low + ", " + this.high + "]";
+    }
+}
@@ -0,0 +1,156 @@
+package com.trianglez;
+
+import com.trianglez.graph.Intersections;
+import com.trianglez.graph.PartitionedGraph;
+import com.trianglez.node.Node;
+
+import java.io.IOException;
+import java.util.function.ToIntFunction;
+
+/**
+ * {@link TriangleCounter} for a {@link PartitionedGraph}, so the edges never have to be on the heap all at once. Every
+ * triangle r &lt; s &lt; t in rank order is found like {@link Algorithm#FORWARD} finds it: from the row of r, by
+ * intersecting the part of r's row after s with the row of s. The row of s can be in any partition from r's on, so
+ * each partition is paired with itself and every later one, which means two loaded partitions at most and
+ * partitions^2 / 2 partition reads in total.
+ * <p>
+ * Counts are the same as the in-memory counters give. Only the long per node for the counts and what
+ * {@link PartitionedGraph} keeps stay on the heap besides the two partitions.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class ExternalTriangleCounter<N extends Node> {
+
+    private final PartitionedGraph g;
+    private final ToIntFunction<N> indexOf;
+    private final long[] localCounts;
+
+    /**
+     * Counts the local triangles of every node.
+     *
+     * @param indexOf the node index of a node, e.g. {@link com.trianglez.node.types.FBPageDictionary#indexOf}, -1
+     *                if it's not in the graph.
+     * @throws IOException if a partition can't be read.
+     */
+    public ExternalTriangleCounter(final PartitionedGraph g, ToIntFunction<N> indexOf) throws IOException {
+        this.g = g;
+        this.indexOf = indexOf;
+        long[] counts = new long[g.nodeCount()];
+        forEachTriangle(g, (a, b, c) -> {
+            counts[a]++;
+            counts[b]++;
+            counts[c]++;
+            return true;
+        });
+        this.localCounts = counts;
+    }
+
+    /**
+     * Pushes every unique triangle to a visitor, partition pair by partition pair.
+     *
+     * @param visitor gets the node indices of each triangle.
+     * @return true if every triangle was visited, false if the visitor stopped early.
+     * @throws IOException if a partition can't be read.
+     */
+    public static boolean forEachTriangle(PartitionedGraph g, TriangleVisitor visitor) throws IOException {
+        int[] common = new int[0];
+        for (int i = 0; i < g.partitions(); i++) {
+            PartitionedGraph.Partition rows = g.partition(i);
+            for (int j = i; j < g.partitions(); j++) {
+                PartitionedGraph.Partition others = j == i ? rows : g.partition(j);
+                int lo = others.getFirstRank();
+                int hi = lo + others.rows();
+                int[] offsets = rows.getOffsets();
+                int[] neighbours = rows.getNeighbours();
+                int[] otherOffsets = others.getOffsets();
+                int[] otherNeighbours = others.getNeighbours();
+                for (int row = 0; row < rows.rows(); row++) {
+                    int r = rows.getFirstRank() + row;
+                    int end = offsets[row + 1];
+                    if (common.length < end - offsets[row])
+                        common = new int[end - offsets[row]];
+                    // the neighbours whose rows are in the other partition are a contiguous run
+                    for (int k = from(neighbours, offsets[row], end, lo); k < end && neighbours[k] < hi; k++) {
+                        int s = neighbours[k];
+                        int found = Intersections.intersect(neighbours, k + 1, end,
+                                otherNeighbours, otherOffsets[s - lo], otherOffsets[s - lo + 1], common, 0);
+                        for (int x = 0; x < found; x++)
+                            if (!visitor.visit(g.node(r), g.node(s), g.node(common[x])))
+                                return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return first index in [from, to) with a value of at least key.
+     */
+    private static int from(int[] row, int from, int to, int key) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (row[mid] < key)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * @return number of triangles per node index. Don't modify it.
+     */
+    public long[] getLocalCounts() {
+        return this.localCounts;
+    }
+
+    public long countLocalTriangles() {
+        long sum = 0;
+        for (long count : this.localCounts)
+            sum += count;
+        return sum;
+    }
+
+    public long countLocalTriangles(N n) {
+        return this.localCounts[indexOf(n)];
+    }
+
+    public long countTriangles() {
+        return countLocalTriangles() / 3;
+    }
+
+    /**
+     * Same as {@link TriangleCounter#clusteringCoefficient(Node)}.
+     */
+    public double clusteringCoefficient(N n) {
+        return clusteringCoefficient(indexOf(n));
+    }
+
+    private double clusteringCoefficient(int u) {
+        return Coefficients.local(this.g.degree(u), this.localCounts[u]);
+    }
+
+    /**
+     * Same as {@link TriangleCounter#globalClusteringCoefficient()}.
+     */
+    public double globalClusteringCoefficient() {
+        return Coefficients.global(this.g.nodeCount(), this.g::degree, u -> this.localCounts[u]);
+    }
+
+    /**
+     * Same as {@link TriangleCounter#avgClusteringCoefficient()}.
+     */
+    public double avgClusteringCoefficient() {
+        return Coefficients.average(this.g.nodeCount(), this.g::degree, u -> this.localCounts[u]);
+    }
+
+    private int indexOf(N n) {
+        int u = this.indexOf.applyAsInt(n);
+        if (u < 0 || u >= this.localCounts.length)
+            throw new IllegalArgumentException("Node " + n + " is not an element of this graph.");
+        return u;
+    }
+}
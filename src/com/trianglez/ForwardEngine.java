@@ -0,0 +1,107 @@
+package com.trianglez;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.Intersections;
+
+import java.util.Arrays;
+
+/**
+ * See {@link Algorithm#FORWARD}. Nodes are ranked by (degree, index) and only edges going up in rank are kept, stored as
+ * a second CSR in rank space so rows of consecutive roots sit next to each other. Root slots are ranks.
+ */
+class ForwardEngine implements TriangleEngine {
+    /**
+     * rank to node index.
+     */
+    private final int[] order;
+    private final int[] offsets;
+    private final int[] neighbours;
+
+    ForwardEngine(CSRGraph<?> g) {
+        int n = g.nodeCount();
+        int[] gOffsets = g.getOffsets();
+        int[] gNeighbours = g.getNeighbours();
+
+        this.order = g.degreeOrder();
+        int[] rank = new int[n];
+        for (int r = 0; r < n; r++)
+            rank[this.order[r]] = r;
+
+        this.offsets = new int[n + 1];
+        this.neighbours = new int[gNeighbours.length / 2];
+        int write = 0;
+        for (int r = 0; r < n; r++) {
+            int u = this.order[r];
+            for (int i = gOffsets[u]; i < gOffsets[u + 1]; i++)
+                if (rank[gNeighbours[i]] > r)
+                    this.neighbours[write++] = rank[gNeighbours[i]];
+            Arrays.sort(this.neighbours, this.offsets[r], write);
+            this.offsets[r + 1] = write;
+        }
+    }
+
+    @Override
+    public int roots() {
+        return this.order.length;
+    }
+
+    @Override
+    public int width(int r) {
+        return this.offsets[r + 1] - this.offsets[r];
+    }
+
+    @Override
+    public int node(int r) {
+        return this.order[r];
+    }
+
+    /**
+     * Each position s costs a merge of the rest of r's row with s's row.
+     */
+    @Override
+    public long cost(int r) {
+        long cost = 1;
+        int end = this.offsets[r + 1];
+        for (int i = this.offsets[r]; i < end; i++)
+            cost += (end - i) + width(this.neighbours[i]);
+        return cost;
+    }
+
+    /**
+     * Every triangle (r, s, t) with r &lt; s &lt; t in rank order is found from r, as the intersection of the rest of
+     * r's forward row after s with s's forward row.
+     */
+    @Override
+    public long visitCounted(int r, int from, int to, TriangleVisitor visitor) {
+        int end = this.offsets[r + 1];
+        int[] common = new int[Math.max(0, width(r) - 1)];
+        long visited = 0;
+        for (int i = this.offsets[r] + from; i < this.offsets[r] + to && i < end - 1; i++) {
+            int s = this.neighbours[i];
+            int found = Intersections.intersect(this.neighbours, i + 1, end,
+                    this.neighbours, this.offsets[s], this.offsets[s + 1], common, 0);
+            for (int k = 0; k < found; k++)
+                if (!visitor.visit(this.order[r], this.order[s], this.order[common[k]]))
+                    return -2 - visited - k;
+            visited += found;
+        }
+        return visited;
+    }
+
+    @Override
+    public long count(int r, int from, int to) {
+        int end = this.offsets[r + 1];
+        long count = 0;
+        for (int i = this.offsets[r] + from; i < this.offsets[r] + to && i < end - 1; i++) {
+            int s = this.neighbours[i];
+            count += Intersections.count(this.neighbours, i + 1, end,
+                    this.neighbours, this.offsets[s], this.offsets[s + 1]);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean unique() {
+        return true;
+    }
+}
@@ -0,0 +1,209 @@
+package com.trianglez;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.Node;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Counts the connected graphlets of 3 and 4 nodes, per node and for the whole graph, as arrays of longs that can go
+ * straight into feature vectors.
+ * <p>
+ * One pass over the nodes does most of it. For every node u, walking the rows of its neighbours counts how many
+ * neighbours u shares with every node two steps away. That gives u's triangles, the support of each of its edges and
+ * its 4-cycles at once. Stars, paths, tailed triangles and diamonds then follow from degrees, triangles and edge
+ * support with counting identities, without listing any of them. 4-cliques are the only ones that can't be derived
+ * from smaller counts, so they are listed with {@link CliqueCounter}.
+ * <p>
+ * The whole graph counts come both non-induced, where every copy of the pattern counts even if the 4 nodes have more
+ * edges among them, and induced, where they have to have exactly the pattern's edges. Induced counts come from the
+ * non-induced ones by taking out the copies sitting inside denser graphlets, e.g. every diamond holds one 4-cycle and
+ * every 4-clique three.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class GraphletCensus<N extends Node> {
+
+    /**
+     * What each per node count means is on the constants. Those are non-induced, except for WEDGE.
+     */
+    public enum Graphlet {
+        /**
+         * Open wedges centred on the node, pairs of its neighbours that aren't adjacent.
+         */
+        WEDGE,
+        /**
+         * Triangles with the node as a corner.
+         */
+        TRIANGLE,
+        /**
+         * 3-stars centred on the node, any three of its neighbours.
+         */
+        STAR,
+        /**
+         * Paths over 4 nodes with the node as one of the two inner nodes.
+         */
+        PATH,
+        /**
+         * Triangles with a tail, the node being the triangle corner the tail hangs off.
+         */
+        TAILED_TRIANGLE,
+        /**
+         * 4-cycles through the node.
+         */
+        CYCLE,
+        /**
+         * Two triangles sharing an edge, the node being an end of the shared edge.
+         */
+        DIAMOND,
+        /**
+         * 4-cliques with the node in them.
+         */
+        CLIQUE
+    }
+
+    private final CSRGraph<N> g;
+    private final Map<Graphlet, long[]> local = new EnumMap<>(Graphlet.class);
+    private final Map<Graphlet, Long> nonInduced = new EnumMap<>(Graphlet.class);
+    private final Map<Graphlet, Long> induced = new EnumMap<>(Graphlet.class);
+
+    public GraphletCensus(final CSRGraph<N> g, boolean parallelism) {
+        this.g = g;
+        int n = g.nodeCount();
+        int[] offsets = g.getOffsets();
+        int[] neighbours = g.getNeighbours();
+        for (Graphlet graphlet : Graphlet.values())
+            this.local.put(graphlet, new long[n]);
+        long[] wedges = this.local.get(Graphlet.WEDGE);
+        long[] triangles = this.local.get(Graphlet.TRIANGLE);
+        long[] stars = this.local.get(Graphlet.STAR);
+        long[] paths = this.local.get(Graphlet.PATH);
+        long[] tailed = this.local.get(Graphlet.TAILED_TRIANGLE);
+        long[] cycles = this.local.get(Graphlet.CYCLE);
+        long[] diamonds = this.local.get(Graphlet.DIAMOND);
+
+        // shared[w] is the number of common neighbours of u and w, touched lists which w to reset
+        ThreadLocal<int[][]> buffers = ThreadLocal.withInitial(() -> new int[][]{new int[n], new int[n]});
+        IntStream nodes = IntStream.range(0, n);
+        (parallelism ? nodes.parallel() : nodes).forEach(u -> {
+            int[][] buffer = buffers.get();
+            int[] shared = buffer[0];
+            int[] touched = buffer[1];
+            int size = 0;
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                int v = neighbours[i];
+                for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                    int w = neighbours[j];
+                    if (w != u && shared[w]++ == 0)
+                        touched[size++] = w;
+                }
+            }
+            long d = g.degree(u);
+            long common = 0;
+            long pathSum = 0;
+            long diamondSum = 0;
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                int v = neighbours[i];
+                long support = shared[v];
+                common += support;
+                pathSum += (d - 1) * (g.degree(v) - 1) - support;
+                diamondSum += support * (support - 1) / 2;
+            }
+            long cycleSum = 0;
+            for (int k = 0; k < size; k++) {
+                long c = shared[touched[k]];
+                cycleSum += c * (c - 1) / 2;
+                shared[touched[k]] = 0;
+            }
+            long t = common / 2;
+            triangles[u] = t;
+            wedges[u] = d * (d - 1) / 2 - t;
+            stars[u] = d * (d - 1) * (d - 2) / 6;
+            paths[u] = pathSum;
+            tailed[u] = t * (d - 2);
+            // every 4-cycle through u has one node opposite u, sharing two neighbours with it
+            cycles[u] = cycleSum;
+            diamonds[u] = diamondSum;
+        });
+        this.local.put(Graphlet.CLIQUE, new CliqueCounter<>(g, 4, parallelism).getLocalCounts());
+
+        // each copy is seen from this many of its nodes
+        long t = sum(Graphlet.TRIANGLE) / 3;
+        long k4 = sum(Graphlet.CLIQUE) / 4;
+        long d = sum(Graphlet.DIAMOND) / 2;
+        long c4 = sum(Graphlet.CYCLE) / 4;
+        long tt = sum(Graphlet.TAILED_TRIANGLE);
+        long p3 = sum(Graphlet.PATH) / 2;
+        long s3 = sum(Graphlet.STAR);
+        long w = sum(Graphlet.WEDGE) + 3 * t;
+        this.nonInduced.put(Graphlet.WEDGE, w);
+        this.nonInduced.put(Graphlet.TRIANGLE, t);
+        this.nonInduced.put(Graphlet.STAR, s3);
+        this.nonInduced.put(Graphlet.PATH, p3);
+        this.nonInduced.put(Graphlet.TAILED_TRIANGLE, tt);
+        this.nonInduced.put(Graphlet.CYCLE, c4);
+        this.nonInduced.put(Graphlet.DIAMOND, d);
+        this.nonInduced.put(Graphlet.CLIQUE, k4);
+
+        long diamond = d - 6 * k4;
+        long cycle = c4 - diamond - 3 * k4;
+        long tail = tt - 4 * diamond - 12 * k4;
+        this.induced.put(Graphlet.WEDGE, w - 3 * t);
+        this.induced.put(Graphlet.TRIANGLE, t);
+        this.induced.put(Graphlet.STAR, s3 - tail - 2 * diamond - 4 * k4);
+        this.induced.put(Graphlet.PATH, p3 - 4 * cycle - 2 * tail - 6 * diamond - 12 * k4);
+        this.induced.put(Graphlet.TAILED_TRIANGLE, tail);
+        this.induced.put(Graphlet.CYCLE, cycle);
+        this.induced.put(Graphlet.DIAMOND, diamond);
+        this.induced.put(Graphlet.CLIQUE, k4);
+    }
+
+    private long sum(Graphlet graphlet) {
+        long sum = 0;
+        for (long count : this.local.get(graphlet))
+            sum += count;
+        return sum;
+    }
+
+    public CSRGraph<N> getGraph() {
+        return this.g;
+    }
+
+    /**
+     * @return count of graphlet per node index of the graph, see {@link Graphlet}. Don't modify it.
+     */
+    public long[] getLocalCounts(Graphlet graphlet) {
+        return this.local.get(graphlet);
+    }
+
+    /**
+     * @param n a node of the graph.
+     * @return the local count of every {@link Graphlet} of n, in declaration order.
+     */
+    public long[] features(N n) {
+        int u = this.g.indexOf(n);
+        if (u < 0)
+            throw new IllegalArgumentException("Node " + n + " is not an element of this graph.");
+        long[] features = new long[Graphlet.values().length];
+        for (Graphlet graphlet : Graphlet.values())
+            features[graphlet.ordinal()] = this.local.get(graphlet)[u];
+        return features;
+    }
+
+    /**
+     * @return number of sets of nodes whose edges among them are exactly graphlet. For WEDGE, that's the open ones.
+     */
+    public long count(Graphlet graphlet) {
+        return this.induced.get(graphlet);
+    }
+
+    /**
+     * @return number of copies of graphlet in the graph, including the ones inside denser graphlets. For WEDGE, that's
+     * every wedge, open or closed.
+     */
+    public long countNonInduced(Graphlet graphlet) {
+        return this.nonInduced.get(graphlet);
+    }
+}
@@ -0,0 +1,98 @@
+package com.trianglez;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.Intersections;
+
+import java.util.Arrays;
+
+/**
+ * The original algorithm: for every node, check every pair of its neighbours for an edge. Each triangle is found
+ * three times, once per corner, unless ownerOnly is set in which case it's only found from its lowest index corner.
+ * Root slots are node indices.
+ */
+class NodeIteratorEngine implements TriangleEngine {
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final boolean ownerOnly;
+
+    NodeIteratorEngine(CSRGraph<?> g, boolean ownerOnly) {
+        this.offsets = g.getOffsets();
+        this.neighbours = g.getNeighbours();
+        this.ownerOnly = ownerOnly;
+    }
+
+    @Override
+    public int roots() {
+        return this.offsets.length - 1;
+    }
+
+    @Override
+    public int width(int start) {
+        return this.offsets[start + 1] - first(start);
+    }
+
+    /**
+     * Each position v costs a merge of the rest of start's row with v's row.
+     */
+    @Override
+    public long cost(int start) {
+        long cost = 1;
+        int end = this.offsets[start + 1];
+        for (int i = first(start); i < end; i++)
+            cost += (end - i) + (this.offsets[this.neighbours[i] + 1] - this.offsets[this.neighbours[i]]);
+        return cost;
+    }
+
+    /**
+     * @return index into neighbours of position 0 of start.
+     */
+    private int first(int start) {
+        int from = this.offsets[start];
+        if (this.ownerOnly) {
+            // rows are sorted, so skip straight to the neighbours above start
+            from = Arrays.binarySearch(this.neighbours, from, this.offsets[start + 1], start);
+            from = from < 0 ? -from - 1 : from + 1;
+        }
+        return from;
+    }
+
+    /**
+     * For each neighbour v of start, the rest of start's sorted row is intersected with v's sorted row, so every common
+     * neighbour w closes a triangle (start, v, w).
+     */
+    @Override
+    public long visitCounted(int start, int from, int to, TriangleVisitor visitor) {
+        int end = this.offsets[start + 1];
+        int base = first(start);
+        int[] common = new int[Math.max(0, end - base - 1)];
+        long visited = 0;
+        for (int i = base + from; i < base + to && i < end - 1; i++) {
+            int first = this.neighbours[i];
+            int found = Intersections.intersect(this.neighbours, i + 1, end,
+                    this.neighbours, this.offsets[first], this.offsets[first + 1], common, 0);
+            for (int k = 0; k < found; k++)
+                if (!visitor.visit(start, first, common[k]))
+                    return -2 - visited - k;
+            visited += found;
+        }
+        return visited;
+    }
+
+    @Override
+    public long count(int start, int from, int to) {
+        int end = this.offsets[start + 1];
+        int base = first(start);
+        long count = 0;
+        for (int i = base + from; i < base + to && i < end - 1; i++) {
+            int first = this.neighbours[i];
+            count += Intersections.count(this.neighbours, i + 1, end,
+                    this.neighbours, this.offsets[first], this.offsets[first + 1]);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean unique() {
+        return this.ownerOnly;
+    }
+}
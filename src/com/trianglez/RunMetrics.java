@@ -0,0 +1,333 @@
+package com.trianglez;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What a {@link TriangleCounter} or {@link TriangleFinder} run did and where the time went: wedges checked, adjacency
+ * probes, triangles found, timings per {@link Phase}, the roots that took longest and how far the enumeration is.
+ * Pass one to a constructor and read it while the run is going or after it's done. Everything is added up per
+ * scheduled range rather than per triangle, in {@link LongAdder}s so threads don't fight over a cache line, and the
+ * engines report how many triangles a range found instead of having their visitor wrapped, which keeps it cheap enough
+ * to leave on. Reading the clock costs about as much as a small root though, so only roots of at least
+ * {@link #TIMED_WIDTH} positions and every 64th root get timed. The roots that take long are wide ones anyway.
+ * <p>
+ * Counters add up over every run that gets the same instance. Progress and the hottest roots are for the latest
+ * enumeration.
+ */
+public class RunMetrics {
+
+    /**
+     * Roots at least this wide always get timed.
+     */
+    static final int TIMED_WIDTH = 32;
+
+    public enum Phase {
+        /**
+         * Converting a Guava graph to a {@link com.trianglez.graph.CSRGraph}.
+         */
+        LOAD,
+        /**
+         * Finding the triangles.
+         */
+        ENUMERATE,
+        /**
+         * Turning what was found into per node triangle lists, {@link TriangleFinder} only.
+         */
+        COLLECT,
+        /**
+         * {@link TriangleFinder#distinctTriangles()}.
+         */
+        DEDUPE,
+        /**
+         * Global and average clustering coefficients.
+         */
+        COEFFICIENTS
+    }
+
+    /**
+     * Gets told about a run as it goes. Calls can come from any thread of the pool, but never two at once for
+     * progress.
+     */
+    public interface Listener {
+        /**
+         * A phase is done.
+         */
+        default void onPhase(Phase phase, long nanos) {
+        }
+
+        /**
+         * Called at most every progressInterval during an enumeration, and once at the end of it.
+         */
+        default void onProgress(RunMetrics metrics) {
+        }
+    }
+
+    /**
+     * A root that took a lot of time.
+     */
+    public static final class Hotspot {
+        private final int index;
+        private final long nanos;
+
+        Hotspot(int index, long nanos) {
+            this.index = index;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return the node index, see {@link com.trianglez.graph.CSRGraph#node(int)}.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return time spent on its triangles, summed over threads if its work was split up.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return this.index + ": " + this.nanos / 1000 + "us";
+        }
+    }
+
+    private final Listener listener;
+    private final long progressInterval;
+
+    private final LongAdder wedges = new LongAdder();
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder triangles = new LongAdder();
+    private final LongAdder positionsDone = new LongAdder();
+    private final Map<Phase, LongAdder> phases = new EnumMap<>(Phase.class);
+
+    private volatile long positions;
+    /**
+     * Nanoseconds per root of the latest enumeration, indexed by root slot.
+     */
+    private volatile AtomicLongArray rootNanos = new AtomicLongArray(0);
+    private volatile TriangleEngine engine;
+    private final AtomicLong lastProgress = new AtomicLong();
+
+    /**
+     * Just counts, nobody gets called.
+     */
+    public RunMetrics() {
+        this(null, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param listener         gets phases and progress, can be null.
+     * @param progressInterval least nanoseconds between two progress calls.
+     */
+    public RunMetrics(Listener listener, long progressInterval) {
+        this.listener = listener;
+        this.progressInterval = progressInterval;
+        for (Phase phase : Phase.values())
+            this.phases.put(phase, new LongAdder());
+    }
+
+    /**
+     * Wraps an engine so everything run through it gets counted. Resets progress and the hottest roots.
+     */
+    TriangleEngine instrument(TriangleEngine engine) {
+        long total = 0;
+        for (int r = 0; r < engine.roots(); r++)
+            total += engine.width(r);
+        this.positionsDone.reset();
+        this.positions = total;
+        this.rootNanos = new AtomicLongArray(engine.roots());
+        this.engine = engine;
+        this.lastProgress.set(System.nanoTime());
+        return new InstrumentedEngine(engine, this.rootNanos);
+    }
+
+    /**
+     * Adds a phase that took from start until now.
+     */
+    void phase(Phase phase, long start) {
+        long nanos = System.nanoTime() - start;
+        this.phases.get(phase).add(nanos);
+        if (this.listener != null) {
+            if (phase == Phase.ENUMERATE) {
+                synchronized (this.listener) {
+                    this.listener.onProgress(this);
+                }
+            }
+            this.listener.onPhase(phase, nanos);
+        }
+    }
+
+    private void rangeDone(long now) {
+        if (this.listener == null)
+            return;
+        long last = this.lastProgress.get();
+        if (now - last >= this.progressInterval && this.lastProgress.compareAndSet(last, now)) {
+            synchronized (this.listener) {
+                this.listener.onProgress(this);
+            }
+        }
+    }
+
+    /**
+     * Position p of a root pairs it with one neighbour and checks the rest of its row after that neighbour, so it's one
+     * intersection of width - 1 - p wedges. The last position has nothing left to check.
+     */
+    private class InstrumentedEngine implements TriangleEngine {
+        private final TriangleEngine engine;
+        private final AtomicLongArray rootNanos;
+
+        InstrumentedEngine(TriangleEngine engine, AtomicLongArray rootNanos) {
+            this.engine = engine;
+            this.rootNanos = rootNanos;
+        }
+
+        @Override
+        public int roots() {
+            return this.engine.roots();
+        }
+
+        @Override
+        public int width(int root) {
+            return this.engine.width(root);
+        }
+
+        @Override
+        public long cost(int root) {
+            return this.engine.cost(root);
+        }
+
+        @Override
+        public int node(int root) {
+            return this.engine.node(root);
+        }
+
+        @Override
+        public boolean unique() {
+            return this.engine.unique();
+        }
+
+        @Override
+        public long visitCounted(int root, int from, int to, TriangleVisitor visitor) {
+            int width = this.engine.width(root);
+            boolean timed = timed(root, width);
+            long start = timed ? System.nanoTime() : 0;
+            long visited = this.engine.visitCounted(root, from, to, visitor);
+            range(root, width, from, to, visited < 0 ? -1 - visited : visited, timed, start);
+            return visited;
+        }
+
+        @Override
+        public long count(int root, int from, int to) {
+            int width = this.engine.width(root);
+            boolean timed = timed(root, width);
+            long start = timed ? System.nanoTime() : 0;
+            long found = this.engine.count(root, from, to);
+            range(root, width, from, to, found, timed, start);
+            return found;
+        }
+
+        private boolean timed(int root, int width) {
+            return width >= TIMED_WIDTH || (root & 63) == 0;
+        }
+
+        private void range(int root, long width, int from, int to, long found, boolean timed, long start) {
+            long last = Math.min(to, width - 1);
+            if (last > from) {
+                probes.add(last - from);
+                // sum of width - 1 - p for p in [from, last)
+                wedges.add((last - from) * (2 * width - 1 - from - last) / 2);
+            }
+            triangles.add(found);
+            positionsDone.add(to - from);
+            if (timed) {
+                long now = System.nanoTime();
+                this.rootNanos.addAndGet(root, now - start);
+                rangeDone(now);
+            }
+        }
+    }
+
+    /**
+     * @return neighbour pairs looked at so far.
+     */
+    public long getWedgesChecked() {
+        return this.wedges.sum();
+    }
+
+    /**
+     * @return sorted row intersections done so far, one per (root, neighbour) pair.
+     */
+    public long getAdjacencyProbes() {
+        return this.probes.sum();
+    }
+
+    /**
+     * @return triangles found so far. Engines that find every triangle from each corner count it three times.
+     */
+    public long getTrianglesFound() {
+        return this.triangles.sum();
+    }
+
+    /**
+     * @return total time spent in phase so far.
+     */
+    public long getPhaseNanos(Phase phase) {
+        return this.phases.get(phase).sum();
+    }
+
+    /**
+     * @return done fraction of the latest enumeration, between 0 and 1.
+     */
+    public double getProgress() {
+        long total = this.positions;
+        return total == 0 ? 1 : Math.min(1d, (double) this.positionsDone.sum() / total);
+    }
+
+    /**
+     * @param k how many to return at most.
+     * @return the timed roots of the latest enumeration that took longest, longest first.
+     */
+    public List<Hotspot> getHotspots(int k) {
+        AtomicLongArray nanos = this.rootNanos;
+        TriangleEngine engine = this.engine;
+        if (engine == null || k <= 0)
+            return Collections.emptyList();
+        PriorityQueue<Hotspot> top = new PriorityQueue<>(k, (a, b) -> Long.compare(a.nanos, b.nanos));
+        for (int r = 0; r < nanos.length(); r++) {
+            long t = nanos.get(r);
+            if (top.size() < k) {
+                top.add(new Hotspot(engine.node(r), t));
+            } else if (t > top.peek().nanos) {
+                top.poll();
+                top.add(new Hotspot(engine.node(r), t));
+            }
+        }
+        List<Hotspot> sorted = new ArrayList<>(top);
+        sorted.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+        return sorted;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("wedges=").append(getWedgesChecked())
+                .append(" probes=").append(getAdjacencyProbes())
+                .append(" triangles=").append(getTrianglesFound())
+                .append(" progress=").append(Math.round(getProgress() * 100)).append('%');
+        for (Phase phase : Phase.values())
+            s.append(' ').append(phase.name().toLowerCase()).append('=').append(getPhaseNanos(phase) / 1000000)
+                    .append("ms");
+        return s.toString();
+    }
+}
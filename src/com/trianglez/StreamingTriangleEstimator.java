@@ -0,0 +1,279 @@
+package com.trianglez;
+
+import com.trianglez.graph.IdTable;
+import com.trianglez.graph.Intersections;
+import com.trianglez.readers.EdgeListParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Estimates global and local triangle counts from a stream of edges seen once each, without ever holding the whole
+ * graph. This is TRIÈST-IMPR (De Stefani et al., KDD 2016): a reservoir sample of at most sampleSize edges is kept, and
+ * every arriving edge first counts the triangles it closes inside the sample, weighted by how unlikely it was for the
+ * other two edges to both still be sampled. The counts are unbiased at every point of the stream, so they can be read
+ * while a file is still being parsed.
+ * <p>
+ * Works on the raw ids of an edge list like the ones {@link EdgeListParser} reads. Every id gets a dense slot from an
+ * {@link IdTable} the first time it's seen, and per slot it keeps an estimate and the exact degree, so memory is the
+ * sample plus a few bytes per distinct id, however long the stream and however big the ids. Self loops are skipped, and so is an edge that arrives again,
+ * in either direction, while it's still in the sample. A repeat of an edge that was evicted already can't be told
+ * apart from a new edge and gets counted again, so streams with many repeats should be deduplicated first.
+ * <p>
+ * Not thread safe.
+ */
+public class StreamingTriangleEstimator {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int sampleSize;
+    private final SplittableRandom random;
+
+    /**
+     * Raw id to slot, every array below is indexed by slot.
+     */
+    private final IdTable slots = new IdTable();
+    /**
+     * The sampled edges as slots (u &lt;&lt; 32 | v) with u &lt; v, for picking one to evict.
+     */
+    private final long[] sample;
+    private int sampled;
+    /**
+     * Sorted neighbour slots of each slot within the sample.
+     */
+    private int[][] rows = new int[16][];
+    private int[] rowLengths = new int[16];
+    private int[] scratch = new int[16];
+
+    private long edges;
+    private double triangles;
+    private double[] localTriangles = new double[16];
+    private int[] degrees = new int[16];
+    /**
+     * Sum of d * (d - 1) over every id, exact.
+     */
+    private long wedgeSum;
+
+    /**
+     * @param sampleSize most edges to keep in memory, at least 2. Bigger means tighter estimates.
+     */
+    public StreamingTriangleEstimator(int sampleSize) {
+        this(sampleSize, new SplittableRandom().nextLong());
+    }
+
+    public StreamingTriangleEstimator(int sampleSize, long seed) {
+        if (sampleSize < 2)
+            throw new IllegalArgumentException("Sample size has to be at least 2, got " + sampleSize);
+        this.sampleSize = sampleSize;
+        this.random = new SplittableRandom(seed);
+        this.sample = new long[sampleSize];
+    }
+
+    /**
+     * Streams a whole edge list CSV through a new estimator.
+     *
+     * @param every    call progress after this many edges, 0 for never.
+     * @param progress gets the estimator with its running estimates while the file is being read, can be null.
+     * @return the estimator after the last edge.
+     * @throws IOException if the file can't be read.
+     */
+    public static StreamingTriangleEstimator read(File file, int sampleSize, long every,
+                                                  Consumer<StreamingTriangleEstimator> progress) throws IOException {
+        StreamingTriangleEstimator estimator = new StreamingTriangleEstimator(sampleSize);
+        estimator.read(file, every, progress);
+        return estimator;
+    }
+
+    /**
+     * Adds every edge of an edge list CSV, on top of whatever was streamed in before.
+     */
+    public void read(File file, long every, Consumer<StreamingTriangleEstimator> progress) throws IOException {
+        EdgeListParser.parse(file, (u, v) -> {
+            edge(u, v);
+            if (progress != null && every > 0 && this.edges % every == 0)
+                progress.accept(this);
+        });
+    }
+
+    /**
+     * Takes the next edge of the stream.
+     *
+     * @param u raw id of one end.
+     * @param v raw id of the other end.
+     */
+    public void edge(int u, int v) {
+        if (u == v)
+            return;
+        if (u < 0 || v < 0)
+            throw new IllegalArgumentException("Ids can't be negative: " + u + ", " + v);
+        u = slot(u);
+        v = slot(v);
+        if (sampled(u, v))
+            return;
+        this.edges++;
+        this.wedgeSum += 2L * this.degrees[u] + 2L * this.degrees[v];
+        this.degrees[u]++;
+        this.degrees[v]++;
+        countTriangles(u, v);
+
+        if (this.sampled < this.sampleSize) {
+            this.sample[this.sampled++] = pack(u, v);
+            insert(u, v);
+            insert(v, u);
+        } else if (this.random.nextLong(this.edges) < this.sampleSize) {
+            int evict = this.random.nextInt(this.sampleSize);
+            long old = this.sample[evict];
+            remove((int) (old >>> 32), (int) old);
+            remove((int) old, (int) (old >>> 32));
+            this.sample[evict] = pack(u, v);
+            insert(u, v);
+            insert(v, u);
+        }
+    }
+
+    /**
+     * A triangle closed by the t-th edge is counted with weight 1 over the chance that its other two edges are both in
+     * the sample, which is M / (t - 1) * (M - 1) / (t - 2) once the sample is full.
+     */
+    private void countTriangles(int u, int v) {
+        int most = Math.min(this.rowLengths[u], this.rowLengths[v]);
+        if (most == 0)
+            return;
+        if (this.scratch.length < most)
+            this.scratch = new int[Math.max(most, 2 * this.scratch.length)];
+        int common = Intersections.intersect(this.rows[u], 0, this.rowLengths[u], this.rows[v], 0,
+                this.rowLengths[v], this.scratch, 0);
+        if (common == 0)
+            return;
+        double t = this.edges;
+        double m = this.sampleSize;
+        double weight = Math.max(1d, (t - 1) * (t - 2) / (m * (m - 1)));
+        for (int k = 0; k < common; k++)
+            this.localTriangles[this.scratch[k]] += weight;
+        this.localTriangles[u] += weight * common;
+        this.localTriangles[v] += weight * common;
+        this.triangles += weight * common;
+    }
+
+    private static long pack(int u, int v) {
+        return u < v ? ((long) u << 32) | v : ((long) v << 32) | u;
+    }
+
+    /**
+     * @return the slot of id, a new one the first time id is seen.
+     */
+    private int slot(int id) {
+        int slot = this.slots.get(id);
+        if (slot >= 0)
+            return slot;
+        slot = this.slots.size();
+        this.slots.put(id, slot);
+        if (slot < this.degrees.length)
+            return slot;
+        int capacity = this.degrees.length + (this.degrees.length >> 1);
+        this.rows = Arrays.copyOf(this.rows, capacity);
+        this.rowLengths = Arrays.copyOf(this.rowLengths, capacity);
+        this.localTriangles = Arrays.copyOf(this.localTriangles, capacity);
+        this.degrees = Arrays.copyOf(this.degrees, capacity);
+        return slot;
+    }
+
+    private boolean sampled(int u, int v) {
+        return this.rows[u] != null && Arrays.binarySearch(this.rows[u], 0, this.rowLengths[u], v) >= 0;
+    }
+
+    private void insert(int u, int v) {
+        int[] row = this.rows[u] == null ? EMPTY : this.rows[u];
+        int length = this.rowLengths[u];
+        int at = -Arrays.binarySearch(row, 0, length, v) - 1;
+        if (length == row.length) {
+            int[] grown = new int[Math.max(4, length + (length >> 1))];
+            System.arraycopy(row, 0, grown, 0, at);
+            System.arraycopy(row, at, grown, at + 1, length - at);
+            row = grown;
+            this.rows[u] = row;
+        } else {
+            System.arraycopy(row, at, row, at + 1, length - at);
+        }
+        row[at] = v;
+        this.rowLengths[u] = length + 1;
+    }
+
+    private void remove(int u, int v) {
+        int[] row = this.rows[u];
+        int length = this.rowLengths[u];
+        int at = Arrays.binarySearch(row, 0, length, v);
+        System.arraycopy(row, at + 1, row, at, length - at - 1);
+        this.rowLengths[u] = length - 1;
+    }
+
+    /**
+     * @return number of edges streamed so far, not counting self loops.
+     */
+    public long edgeCount() {
+        return this.edges;
+    }
+
+    /**
+     * @return number of edges currently in the sample.
+     */
+    public int sampledEdges() {
+        return this.sampled;
+    }
+
+    /**
+     * @return exact degree of id so far.
+     */
+    public int degree(int id) {
+        int slot = this.slots.get(id);
+        return slot >= 0 ? this.degrees[slot] : 0;
+    }
+
+    /**
+     * Exact as long as the sample hasn't filled up.
+     *
+     * @return estimated number of unique triangles so far.
+     */
+    public double countTriangles() {
+        return this.triangles;
+    }
+
+    /**
+     * @return estimated number of triangles id is a corner of so far.
+     */
+    public double countLocalTriangles(int id) {
+        int slot = this.slots.get(id);
+        return slot >= 0 ? this.localTriangles[slot] : 0;
+    }
+
+    /**
+     * Same definition as {@link TriangleCounter#clusteringCoefficient(com.trianglez.node.Node)}, with the exact
+     * degree and the estimated local count.
+     *
+     * @return estimated clustering coefficient of id, -1 if it has less than two neighbours.
+     */
+    public double clusteringCoefficient(int id) {
+        return Coefficients.local(degree(id), countLocalTriangles(id));
+    }
+
+    /**
+     * Same definition as {@link TriangleCounter#globalClusteringCoefficient()}.
+     *
+     * @return estimated global clustering coefficient so far.
+     */
+    public double globalClusteringCoefficient() {
+        return 3d * this.triangles / this.wedgeSum;
+    }
+
+    /**
+     * Goes over every id seen so far.
+     *
+     * @return estimated average clustering coefficient of ids with at least two neighbours.
+     */
+    public double avgClusteringCoefficient() {
+        return Coefficients.average(this.slots.size(), u -> this.degrees[u], u -> this.localTriangles[u]);
+    }
+}
@@ -6,37 +6,70 @@ import com.google.common.hash.PrimitiveSink;
 import com.trianglez.node.Node;
 
 import javax.annotation.ParametersAreNonnullByDefault;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Class that represents two other nodes that can be associated with a second node, which altogether create a Triangle.
  * It is useful to hash a Triangle if they are going to be put into a set.
+ * <p>
+ * The three nodes are kept sorted in plain fields and the hash is computed once, since a Triangle gets created for
+ * every local triangle found. See {@link TriangleBuffer} for a packed form with no object per triangle at all.
  *
  * @param <N> a subclass of Node.
  */
 public class Triangle<N extends Node> implements Funnel<Triangle<N>> {
 
     /**
-     * nodes is a sorted list of N because {@link Triangle::hashCode} needs to produce the same hash regardless of the
+     * The nodes in sorted order because {@link Triangle::hashCode} needs to produce the same hash regardless of the
      * node ordering. To achieve this, a sorted order iteration needs to be possible for the hashCode method.
      */
-    private List<N> nodes;
+    private final N first;
+    private final N second;
+    private final N third;
+    private final int hash;
 
     public Triangle(N start, N first, N second) {
-        this.nodes = new ArrayList<>(List.of(start, first, second));
-        this.nodes.sort(Node::compareTo);
+        // three element sorting network
+        if (start.compareTo(first) > 0) {
+            N t = start;
+            start = first;
+            first = t;
+        }
+        if (first.compareTo(second) > 0) {
+            N t = first;
+            first = second;
+            second = t;
+        }
+        if (start.compareTo(first) > 0) {
+            N t = start;
+            start = first;
+            first = t;
+        }
+        this.first = start;
+        this.second = first;
+        this.third = second;
+        this.hash = Hashing.murmur3_32().hashObject(this, this).asInt();
     }
 
+    /**
+     * @return the three nodes in sorted order.
+     */
     public List<N> getNodes() {
-        return this.nodes;
+        return List.of(this.first, this.second, this.third);
+    }
+
+    /**
+     * @return the smallest of the three nodes, the one that owns the triangle when deduplicating.
+     */
+    N first() {
+        return this.first;
     }
 
     /**
      * Overridden to be usable in HashSet.
      *
      * @param obj The other Triangle.
-     * @return true if their hashCode matches or is same ref, false if otherwise.
+     * @return true if the same nodes make up both triangles, false if otherwise.
      */
     @Override
     public boolean equals(Object obj) {
@@ -44,7 +77,9 @@ public class Triangle<N extends Node> implements Funnel<Triangle<N>> {
         if (obj == this) return true;
         if (!(obj instanceof Triangle))
             return false;
-        return this.hashCode() == (obj).hashCode();
+        Triangle<?> t = (Triangle<?>) obj;
+        return this.hash == t.hash && this.first.equals(t.first) && this.second.equals(t.second) &&
+                this.third.equals(t.third);
     }
 
     /**
@@ -53,11 +88,11 @@ public class Triangle<N extends Node> implements Funnel<Triangle<N>> {
      * same contents will result in the same hash.
      * </strong>
      *
-     * @return murmur3_32 (Integer) hash code
+     * @return murmur3_32 (Integer) hash code, computed in the constructor.
      */
     @Override
     public int hashCode() {
-        return Hashing.murmur3_32().hashObject(this, this).asInt();
+        return this.hash;
     }
 
     /**
@@ -70,13 +105,14 @@ public class Triangle<N extends Node> implements Funnel<Triangle<N>> {
     @Override
     @ParametersAreNonnullByDefault
     public void funnel(Triangle<N> triangle, PrimitiveSink primitiveSink) {
-        triangle.getNodes().forEach(node -> primitiveSink.putInt(node.hashCode()));
+        primitiveSink
+                .putInt(triangle.first.hashCode())
+                .putInt(triangle.second.hashCode())
+                .putInt(triangle.third.hashCode());
     }
 
     @Override
     public String toString() {
-        final StringBuilder text = new StringBuilder("(");
-        this.getNodes().forEach((N n) -> text.append(n.toString()).append(","));
-        return text.toString().substring(0, text.length() - 1) + ")";
+        return "(" + this.first + "," + this.second + "," + this.third + ")";
     }
 }
@@ -0,0 +1,95 @@
+package com.trianglez;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.Node;
+
+import java.util.Arrays;
+
+/**
+ * Triangles packed three node indices at a time into one growable int array, for bulk results where a
+ * {@link Triangle} object per triangle would cost too much. The indices of each triangle are stored sorted, so two
+ * entries are the same triangle exactly when their ints match.
+ * <p>
+ * Not thread safe.
+ */
+public class TriangleBuffer {
+    private int[] nodes;
+    private int size;
+
+    public TriangleBuffer() {
+        this(16);
+    }
+
+    /**
+     * @param expectedTriangles a sizing hint.
+     */
+    public TriangleBuffer(int expectedTriangles) {
+        this.nodes = new int[3 * Math.max(1, expectedTriangles)];
+    }
+
+    /**
+     * Adds a triangle, its corners can come in any order.
+     */
+    public void add(int a, int b, int c) {
+        if (a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        if (b > c) {
+            int t = b;
+            b = c;
+            c = t;
+        }
+        if (a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        ensure(this.size + 1);
+        this.nodes[3 * this.size] = a;
+        this.nodes[3 * this.size + 1] = b;
+        this.nodes[3 * this.size + 2] = c;
+        this.size++;
+    }
+
+    public void addAll(TriangleBuffer other) {
+        ensure(this.size + other.size);
+        System.arraycopy(other.nodes, 0, this.nodes, 3 * this.size, 3 * other.size);
+        this.size += other.size;
+    }
+
+    private void ensure(int triangles) {
+        if (3L * triangles > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("Too many triangles for one buffer.");
+        if (3 * triangles > this.nodes.length)
+            this.nodes = Arrays.copyOf(this.nodes, (int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(3L * triangles, 2L * this.nodes.length)));
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @param i      a triangle.
+     * @param corner 0, 1 or 2.
+     * @return the node index at that corner, corners are in ascending order.
+     */
+    public int get(int i, int corner) {
+        if (i >= this.size || corner < 0 || corner > 2)
+            throw new IndexOutOfBoundsException("No corner " + corner + " of triangle " + i);
+        return this.nodes[3 * i + corner];
+    }
+
+    /**
+     * Creates the {@link Triangle} object for one entry.
+     *
+     * @param g the graph the indices belong to.
+     * @param i a triangle.
+     * @return the triangle.
+     */
+    public <N extends Node> Triangle<N> triangle(CSRGraph<N> g, int i) {
+        return new Triangle<>(g.node(get(i, 0)), g.node(get(i, 1)), g.node(get(i, 2)));
+    }
+}
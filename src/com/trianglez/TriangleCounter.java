@@ -0,0 +1,435 @@
+package com.trianglez;
+
+import com.google.common.graph.Graph;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.Node;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Counts local triangles without ever creating {@link Triangle} objects. Only a long per node is kept around, which is
+ * all the clustering coefficients need. Use {@link TriangleFinder} if you want the triangles themselves.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class TriangleCounter<N extends Node> {
+
+    protected CSRGraph<N> g;
+    protected boolean parallelism;
+    protected Algorithm algorithm;
+    /**
+     * Where the enumeration runs, null if it runs on the calling thread.
+     */
+    protected ForkJoinPool pool;
+    /**
+     * Number of triangles each node index is a corner of.
+     */
+    protected long[] localCounts;
+    /**
+     * Null if nothing gets measured.
+     */
+    protected RunMetrics metrics;
+    /**
+     * The counts never change after construction, so anything computed from them is kept. Filled on first use.
+     */
+    private volatile double[] coefficients;
+    private volatile double globalCoefficient;
+    private volatile boolean globalComputed;
+    private volatile double avgCoefficient = Double.NaN;
+    private volatile long localSum = -1;
+    private volatile int[] edgeSupport;
+
+    public TriangleCounter(final Graph<N> g, boolean parallelism) throws Exception {
+        this(g, parallelism, Algorithm.NODE_ITERATOR);
+    }
+
+    public TriangleCounter(final Graph<N> g, boolean parallelism, Algorithm algorithm) throws Exception {
+        this(g, parallelism, algorithm, null);
+    }
+
+    /**
+     * @param metrics gets what the run does, including the conversion of g, can be null.
+     */
+    public TriangleCounter(final Graph<N> g, boolean parallelism, Algorithm algorithm, RunMetrics metrics)
+            throws Exception {
+        if (g.allowsSelfLoops() || g.isDirected()) {
+            throw new Exception("Only works with undirected, self-loopless graphs. Sorry!");
+        }
+        this.metrics = metrics;
+        long start = System.nanoTime();
+        this.g = CSRGraph.of(g);
+        phase(RunMetrics.Phase.LOAD, start);
+        this.parallelism = parallelism;
+        this.algorithm = algorithm;
+        this.pool = parallelism ? ForkJoinPool.commonPool() : null;
+        forEachNode();
+    }
+
+    /**
+     * Skips the conversion from a Guava {@link Graph}, e.g. for graphs from
+     * {@link com.trianglez.readers.FBGraphReader#getCSRGraph()}.
+     */
+    public TriangleCounter(final CSRGraph<N> g, boolean parallelism) {
+        this(g, parallelism, Algorithm.NODE_ITERATOR);
+    }
+
+    public TriangleCounter(final CSRGraph<N> g, boolean parallelism, Algorithm algorithm) {
+        this(g, algorithm, parallelism ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Runs the enumeration on a pool of your own instead of the common pool, e.g. to limit how many threads it gets.
+     *
+     * @param pool where to run, or null to run on the calling thread.
+     */
+    public TriangleCounter(final CSRGraph<N> g, Algorithm algorithm, ForkJoinPool pool) {
+        this(g, algorithm, pool, null);
+    }
+
+    /**
+     * @param pool    where to run, or null to run on the calling thread.
+     * @param metrics gets what the run does, can be null.
+     */
+    public TriangleCounter(final CSRGraph<N> g, Algorithm algorithm, ForkJoinPool pool, RunMetrics metrics) {
+        this.g = g;
+        this.parallelism = pool != null;
+        this.algorithm = algorithm;
+        this.pool = pool;
+        this.metrics = metrics;
+        forEachNode();
+    }
+
+    /**
+     * Wraps local counts that were computed earlier, e.g. loaded from a
+     * {@link com.trianglez.readers.FBGraphSnapshot}. Nothing gets enumerated.
+     *
+     * @param localCounts triangles per node index of g.
+     */
+    public TriangleCounter(final CSRGraph<N> g, long[] localCounts) {
+        if (localCounts.length != g.nodeCount())
+            throw new IllegalArgumentException("Expected " + g.nodeCount() + " counts, got " + localCounts.length);
+        this.g = g;
+        this.parallelism = false;
+        this.algorithm = Algorithm.FORWARD;
+        this.localCounts = localCounts;
+    }
+
+    /**
+     * @return a new engine of the algorithm over g, counted by metrics if there are any.
+     */
+    TriangleEngine engine(boolean unique) {
+        TriangleEngine engine = this.algorithm.engine(this.g, unique);
+        return this.metrics == null ? engine : this.metrics.instrument(engine);
+    }
+
+    /**
+     * Adds the time since start to a phase of metrics, if there are any.
+     */
+    void phase(RunMetrics.Phase phase, long start) {
+        if (this.metrics != null)
+            this.metrics.phase(phase, start);
+    }
+
+    /**
+     * @return what this run measured, null if it didn't get a {@link RunMetrics}.
+     */
+    public RunMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Fills localCounts. Called from the constructor, subclasses that override it must fill localCounts as well.
+     */
+    protected void forEachNode() {
+        long start = System.nanoTime();
+        countEachNode();
+        phase(RunMetrics.Phase.ENUMERATE, start);
+    }
+
+    private void countEachNode() {
+        TriangleEngine engine = engine(false);
+        if (this.pool == null) {
+            long[] counts = new long[this.g.nodeCount()];
+            if (!engine.unique()) {
+                BalancedScheduler.run(engine, null, (root, from, to) -> {
+                    counts[root] += engine.count(root, from, to);
+                    return true;
+                });
+            } else {
+                BalancedScheduler.run(engine, null, (root, from, to) -> engine.visit(root, from, to, (a, b, c) -> {
+                    counts[a]++;
+                    counts[b]++;
+                    counts[c]++;
+                    return true;
+                }));
+            }
+            this.localCounts = counts;
+            return;
+        }
+
+        AtomicLongArray counts = new AtomicLongArray(this.g.nodeCount());
+        if (!engine.unique()) {
+            // the root is the first corner of everything it finds, so count locally and add once per range
+            BalancedScheduler.run(engine, this.pool, (root, from, to) -> {
+                counts.addAndGet(root, engine.count(root, from, to));
+                return true;
+            });
+        } else {
+            BalancedScheduler.run(engine, this.pool, (root, from, to) -> engine.visit(root, from, to, (a, b, c) -> {
+                counts.incrementAndGet(a);
+                counts.incrementAndGet(b);
+                counts.incrementAndGet(c);
+                return true;
+            }));
+        }
+        this.localCounts = new long[counts.length()];
+        for (int u = 0; u < this.localCounts.length; u++)
+            this.localCounts[u] = counts.get(u);
+    }
+
+    /**
+     * Pushes every unique triangle to a visitor as soon as it's found, nothing gets stored. The order is whatever the
+     * algorithm finds them in. With parallelism the visitor gets called from several threads at once, so it has to be
+     * thread safe. Once it returns false no more triangles are handed out, though with parallelism a few calls that
+     * were already under way may still arrive.
+     *
+     * @param visitor gets the node indices of each triangle, see {@link CSRGraph#node(int)}.
+     * @return true if every triangle was visited, false if the visitor stopped early.
+     */
+    public boolean forEachTriangle(TriangleVisitor visitor) {
+        return forEachTriangle(engine(true), this.pool, visitor);
+    }
+
+    /**
+     * Same as {@link #forEachTriangle(TriangleVisitor)} but doesn't need a counter to be constructed first, so nothing
+     * is computed beforehand.
+     */
+    public static boolean forEachTriangle(CSRGraph<?> g, Algorithm algorithm, boolean parallelism,
+                                          TriangleVisitor visitor) {
+        return forEachTriangle(g, algorithm, parallelism ? ForkJoinPool.commonPool() : null, visitor);
+    }
+
+    /**
+     * @param pool where to run, or null to run on the calling thread.
+     */
+    public static boolean forEachTriangle(CSRGraph<?> g, Algorithm algorithm, ForkJoinPool pool,
+                                          TriangleVisitor visitor) {
+        return forEachTriangle(algorithm.engine(g, true), pool, visitor);
+    }
+
+    private static boolean forEachTriangle(TriangleEngine engine, ForkJoinPool pool, TriangleVisitor visitor) {
+        if (pool == null)
+            return BalancedScheduler.run(engine, null, (root, from, to) -> engine.visit(root, from, to, visitor));
+
+        AtomicBoolean stopped = new AtomicBoolean();
+        TriangleVisitor guarded = (a, b, c) -> {
+            if (stopped.get())
+                return false;
+            if (visitor.visit(a, b, c))
+                return true;
+            stopped.set(true);
+            return false;
+        };
+        return BalancedScheduler.run(engine, pool, (root, from, to) -> engine.visit(root, from, to, guarded))
+                && !stopped.get();
+    }
+
+    /**
+     * Enumerates every unique triangle again and packs them into one buffer, about 12 bytes per triangle and no
+     * objects. With parallelism each task fills its own buffer and appends it to the result when it's done.
+     *
+     * @return all unique triangles, in no particular order.
+     */
+    public TriangleBuffer collectTriangles() {
+        TriangleEngine engine = engine(true);
+        TriangleBuffer all = new TriangleBuffer((int) Math.min(Integer.MAX_VALUE / 3, countTriangles()));
+        if (this.pool == null) {
+            BalancedScheduler.run(engine, null, (root, from, to) -> engine.visit(root, from, to, (a, b, c) -> {
+                all.add(a, b, c);
+                return true;
+            }));
+            return all;
+        }
+        BalancedScheduler.run(engine, this.pool, (root, from, to) -> {
+            TriangleBuffer[] local = new TriangleBuffer[1];
+            engine.visit(root, from, to, (a, b, c) -> {
+                if (local[0] == null)
+                    local[0] = new TriangleBuffer();
+                local[0].add(a, b, c);
+                return true;
+            });
+            if (local[0] != null) {
+                synchronized (all) {
+                    all.addAll(local[0]);
+                }
+            }
+            return true;
+        });
+        return all;
+    }
+
+    /**
+     * @return the graph this ran on.
+     */
+    public CSRGraph<N> getGraph() {
+        return g;
+    }
+
+    /**
+     * @return number of triangles per node index of {@link #getGraph()}. Don't modify it.
+     */
+    public long[] getLocalCounts() {
+        return this.localCounts;
+    }
+
+    /**
+     * Sums up the count of each vertex's local triangles in the Graph.
+     *
+     * @return Count of all local triangles.
+     */
+    public long countLocalTriangles() {
+        if (this.localSum < 0) {
+            IntStream s = IntStream.range(0, this.localCounts.length);
+            this.localSum = (this.parallelism ? s.parallel() : s).mapToLong(u -> this.localCounts[u]).sum();
+        }
+        return this.localSum;
+    }
+
+    /**
+     * @param n a node of the graph.
+     * @return number of triangles n is a corner of.
+     */
+    public long countLocalTriangles(N n) {
+        return this.localCounts[indexOf(n)];
+    }
+
+    /**
+     * Every triangle is a local triangle of exactly three nodes.
+     *
+     * @return Count of unique triangles.
+     */
+    public long countTriangles() {
+        return countLocalTriangles() / 3;
+    }
+
+    /**
+     * Clustering Coefficient of a node on an undirected graph is
+     * (2 * count(triangles[n]) / (degree[n] * (degree[n] - 1))
+     *
+     * @param n The node to calculate a clustering coefficient for.
+     * @return clustering coefficient of node n.
+     */
+    public double clusteringCoefficient(N n) {
+        return clusteringCoefficient(indexOf(n));
+    }
+
+    double clusteringCoefficient(int u) {
+        return Coefficients.local(g.degree(u), this.localCounts[u]);
+    }
+
+    /**
+     * Same as {@link #clusteringCoefficient(Node)} but only looks at the neighbourhood of n instead of counting the
+     * whole graph first.
+     *
+     * @return clustering coefficient of node n, -1 if it has less than two neighbours.
+     */
+    public static <N extends Node> double clusteringCoefficient(CSRGraph<N> g, N n) {
+        int u = g.indexOf(n);
+        if (u < 0)
+            throw new IllegalArgumentException("Node " + n + " is not an element of this graph.");
+        return Coefficients.local(g.degree(u), g.localTriangles(u));
+    }
+
+    /**
+     * The support of an edge is the number of triangles it's a side of, the number of common neighbours of its ends.
+     * Computed once by intersecting the rows of both ends of every edge, with parallelism spread over the nodes.
+     *
+     * @return support per position of {@link CSRGraph#getNeighbours()}, the same for both directions of an edge.
+     * Don't modify it.
+     */
+    public int[] getEdgeSupport() {
+        if (this.edgeSupport == null)
+            this.edgeSupport = edgeSupport(this.g, this.parallelism);
+        return this.edgeSupport;
+    }
+
+    /**
+     * Same as {@link #getEdgeSupport()} without counting local triangles first.
+     */
+    public static int[] edgeSupport(CSRGraph<?> g, boolean parallelism) {
+        int[] offsets = g.getOffsets();
+        int[] neighbours = g.getNeighbours();
+        int[] reverse = g.reverseEdges();
+        int[] support = new int[neighbours.length];
+        IntStream s = IntStream.range(0, g.nodeCount());
+        (parallelism ? s.parallel() : s).forEach(u -> {
+            // rows are sorted, so the bigger ends come last
+            for (int p = offsets[u + 1] - 1; p >= offsets[u] && neighbours[p] > u; p--) {
+                support[p] = g.commonNeighbours(u, neighbours[p]);
+                support[reverse[p]] = support[p];
+            }
+        });
+        return support;
+    }
+
+    /**
+     * Computed once, with parallelism over all nodes at once.
+     *
+     * @return clustering coefficient per node index of {@link #getGraph()}, -1 for nodes with less than two
+     * neighbours. Don't modify it.
+     */
+    public double[] getClusteringCoefficients() {
+        if (this.coefficients == null) {
+            double[] c = new double[this.g.nodeCount()];
+            IntStream s = IntStream.range(0, c.length);
+            (this.parallelism ? s.parallel() : s).forEach(u -> c[u] = clusteringCoefficient(u));
+            this.coefficients = c;
+        }
+        return this.coefficients;
+    }
+
+    /**
+     * Find total num triangles divided by total num possible triangles. Only the first call goes over the nodes.
+     *
+     * @return global clustering coefficient, -1 if the graph has no wedges.
+     */
+    public double globalClusteringCoefficient() {
+        if (!this.globalComputed) {
+            long start = System.nanoTime();
+            this.globalCoefficient = Coefficients.global(this.g.nodeCount(), this.g::degree,
+                    u -> this.localCounts[u]);
+            this.globalComputed = true;
+            phase(RunMetrics.Phase.COEFFICIENTS, start);
+        }
+        return this.globalCoefficient;
+    }
+
+    /**
+     * Only the first call goes over the nodes.
+     *
+     * @return average clustering coefficient of nodes in the graph.
+     */
+    public double avgClusteringCoefficient() {
+        if (Double.isNaN(this.avgCoefficient)) {
+            long start = System.nanoTime();
+            double[] c = getClusteringCoefficients();
+            IntStream s = IntStream.range(0, c.length);
+            this.avgCoefficient = (this.parallelism ? s.parallel() : s)
+                    .mapToDouble(u -> c[u])
+                    .filter(value -> value != -1d) // filter out the would-be NaN's
+                    .average().orElse(-1);
+            phase(RunMetrics.Phase.COEFFICIENTS, start);
+        }
+        return this.avgCoefficient;
+    }
+
+    int indexOf(N n) {
+        int u = g.indexOf(n);
+        if (u < 0)
+            throw new IllegalArgumentException("Node " + n + " is not an element of this graph.");
+        return u;
+    }
+}
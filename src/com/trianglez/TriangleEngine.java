@@ -0,0 +1,88 @@
+package com.trianglez;
+
+/**
+ * A way of enumerating the triangles of a {@link com.trianglez.graph.CSRGraph}, split up into independent root
+ * slots so the work can be spread over threads. The work of a single root is further split into positions, one per
+ * neighbour it gets paired up with, so hub nodes can be shared between threads too. What a root slot means is up to
+ * the engine, the visitor always gets real node indices.
+ */
+interface TriangleEngine {
+
+    /**
+     * @return number of root slots, visit() accepts 0 until this.
+     */
+    int roots();
+
+    /**
+     * @param root a root slot.
+     * @return number of positions of the root, visit() accepts 0 until this.
+     */
+    int width(int root);
+
+    /**
+     * Estimated work for a root, only relative values matter. Used to balance threads.
+     *
+     * @param root a root slot.
+     * @return the estimated cost.
+     */
+    default long cost(int root) {
+        long w = width(root);
+        return w * w + 1;
+    }
+
+    /**
+     * Visits the triangles belonging to positions [from, to) of a root slot.
+     *
+     * @param root    a root slot.
+     * @param from    first position, inclusive.
+     * @param to      last position, exclusive.
+     * @param visitor gets called once per triangle found.
+     * @return false if the visitor stopped early.
+     */
+    default boolean visit(int root, int from, int to, TriangleVisitor visitor) {
+        return visitCounted(root, from, to, visitor) >= 0;
+    }
+
+    /**
+     * Same as {@link #visit(int, int, int, TriangleVisitor)}, but also says how many triangles the visitor got, so
+     * whoever keeps count doesn't have to wrap the visitor.
+     *
+     * @return number of triangles visited, counting the one the visitor stopped at, or -1 minus that if it stopped
+     * early.
+     */
+    long visitCounted(int root, int from, int to, TriangleVisitor visitor);
+
+    /**
+     * Counts the triangles visit() would visit for positions [from, to) of a root slot. Engines override this to skip
+     * the visitor and only count the intersections.
+     */
+    default long count(int root, int from, int to) {
+        long[] found = new long[1];
+        visit(root, from, to, (a, b, c) -> {
+            found[0]++;
+            return true;
+        });
+        return found[0];
+    }
+
+    /**
+     * Visits all triangles belonging to a root slot.
+     */
+    default boolean visit(int root, TriangleVisitor visitor) {
+        return visit(root, 0, width(root), visitor);
+    }
+
+    /**
+     * @return the node index a root slot stands for.
+     */
+    default int node(int root) {
+        return root;
+    }
+
+    /**
+     * @return true if every triangle is visited exactly once overall, false if every triangle is visited once from
+     * each of its corners. In the latter case root slots are node indices and the root is always the first index
+     * passed to the visitor.
+     */
+    boolean unique();
+}
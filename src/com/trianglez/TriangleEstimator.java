@@ -0,0 +1,260 @@
+package com.trianglez;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.Node;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Estimates triangle counts and clustering coefficients from samples instead of enumerating every triangle, for graphs
+ * where {@link TriangleCounter} takes too long. The cost depends on the sample budget, not the size of the graph, and
+ * every answer comes with a 95% confidence interval.
+ * <p>
+ * Most of it is wedge sampling: a wedge is a path v - u - w, and a wedge is closed if v and w are adjacent. Every
+ * triangle closes three wedges, so the fraction of closed wedges gives the global numbers, and the fraction of closed
+ * wedges around one node is exactly its clustering coefficient. There's also DOULION, which counts triangles exactly on
+ * a random fraction of the edges and scales the count back up.
+ * <p>
+ * Use a seed to get the same answers every time. Not thread safe.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class TriangleEstimator<N extends Node> {
+
+    private final CSRGraph<N> g;
+    private final SplittableRandom random;
+    /**
+     * wedgePrefix[u] is the number of wedges centred on nodes 0 until u, for picking a centre by its wedge count.
+     */
+    private long[] wedgePrefix;
+    /**
+     * Nodes with at least two neighbours, the ones with a clustering coefficient.
+     */
+    private int[] centres;
+
+    public TriangleEstimator(final CSRGraph<N> g) {
+        this(g, new SplittableRandom().nextLong());
+    }
+
+    public TriangleEstimator(final CSRGraph<N> g, long seed) {
+        this.g = g;
+        this.random = new SplittableRandom(seed);
+    }
+
+    private long[] wedgePrefix() {
+        if (this.wedgePrefix == null) {
+            long[] prefix = new long[this.g.nodeCount() + 1];
+            for (int u = 0; u < this.g.nodeCount(); u++)
+                prefix[u + 1] = prefix[u] + wedges(this.g.degree(u));
+            this.wedgePrefix = prefix;
+        }
+        return this.wedgePrefix;
+    }
+
+    private int[] centres() {
+        if (this.centres == null) {
+            int n = 0;
+            for (int u = 0; u < this.g.nodeCount(); u++)
+                if (this.g.degree(u) >= 2)
+                    n++;
+            int[] found = new int[n];
+            n = 0;
+            for (int u = 0; u < this.g.nodeCount(); u++)
+                if (this.g.degree(u) >= 2)
+                    found[n++] = u;
+            this.centres = found;
+        }
+        return this.centres;
+    }
+
+    private static long wedges(long degree) {
+        return degree * (degree - 1) / 2;
+    }
+
+    /**
+     * Picks two different neighbours of u uniformly and checks whether they're adjacent.
+     *
+     * @param u a node with at least two neighbours.
+     */
+    private boolean closedWedge(int u) {
+        int[] offsets = this.g.getOffsets();
+        int[] neighbours = this.g.getNeighbours();
+        int degree = offsets[u + 1] - offsets[u];
+        int i = this.random.nextInt(degree);
+        int j = this.random.nextInt(degree - 1);
+        if (j >= i)
+            j++;
+        int v = neighbours[offsets[u] + i];
+        int w = neighbours[offsets[u] + j];
+        return this.g.degree(v) <= this.g.degree(w) ? this.g.hasEdge(v, w) : this.g.hasEdge(w, v);
+    }
+
+    /**
+     * Samples wedges uniformly from the whole graph by picking their centre with probability proportional to its
+     * number of wedges.
+     *
+     * @return how many of the samples were closed.
+     */
+    private long closedWedges(int samples) {
+        long[] prefix = wedgePrefix();
+        long total = prefix[prefix.length - 1];
+        if (total == 0)
+            return 0;
+        long closed = 0;
+        for (int s = 0; s < samples; s++) {
+            long target = this.random.nextLong(total);
+            // last u with prefix[u] <= target
+            int u = Arrays.binarySearch(prefix, target);
+            if (u < 0)
+                u = -u - 2;
+            while (prefix[u + 1] == prefix[u])
+                u++;
+            if (closedWedge(u))
+                closed++;
+        }
+        return closed;
+    }
+
+    /**
+     * @param samples number of wedges to look at. The interval shrinks with the square root of this.
+     * @return estimate of {@link TriangleCounter#countTriangles()}.
+     */
+    public Estimate countTriangles(int samples) {
+        double wedges = wedgePrefix()[this.g.nodeCount()];
+        // every triangle closes three wedges
+        return Estimate.ofProportion(closedWedges(samples), samples, wedges / 3d);
+    }
+
+    /**
+     * Uses the same definition as {@link TriangleCounter#globalClusteringCoefficient()}, local triangles over the sum
+     * of d * (d - 1), which comes out as half the fraction of closed wedges.
+     *
+     * @param samples number of wedges to look at.
+     * @return estimate of the global clustering coefficient.
+     */
+    public Estimate globalClusteringCoefficient(int samples) {
+        return Estimate.ofProportion(closedWedges(samples), samples, 0.5);
+    }
+
+    /**
+     * Picks nodes with at least two neighbours uniformly and one wedge around each. Every sample comes out closed with
+     * probability equal to the average coefficient, so it's a plain proportion as well.
+     *
+     * @param samples number of nodes to look at.
+     * @return estimate of {@link TriangleCounter#avgClusteringCoefficient()}.
+     */
+    public Estimate avgClusteringCoefficient(int samples) {
+        int[] centres = centres();
+        if (centres.length == 0)
+            return new Estimate(-1, -1, -1, 0);
+        long closed = 0;
+        for (int s = 0; s < samples; s++)
+            if (closedWedge(centres[this.random.nextInt(centres.length)]))
+                closed++;
+        return Estimate.ofProportion(closed, samples, 1);
+    }
+
+    /**
+     * @param n       a node of the graph.
+     * @param samples number of wedges around n to look at.
+     * @return estimate of {@link TriangleCounter#clusteringCoefficient(Node)}, exactly -1 if n has less than two
+     * neighbours.
+     */
+    public Estimate clusteringCoefficient(N n, int samples) {
+        int u = indexOf(n);
+        if (this.g.degree(u) < 2)
+            return new Estimate(-1, -1, -1, 0);
+        return Estimate.ofProportion(closedAround(u, samples), samples, 1);
+    }
+
+    /**
+     * @param n       a node of the graph.
+     * @param samples number of wedges around n to look at.
+     * @return estimate of {@link TriangleCounter#countLocalTriangles(Node)}.
+     */
+    public Estimate countLocalTriangles(N n, int samples) {
+        int u = indexOf(n);
+        if (this.g.degree(u) < 2)
+            return new Estimate(0, 0, 0, 0);
+        return Estimate.ofProportion(closedAround(u, samples), samples, wedges(this.g.degree(u)));
+    }
+
+    private long closedAround(int u, int samples) {
+        long closed = 0;
+        for (int s = 0; s < samples; s++)
+            if (closedWedge(u))
+                closed++;
+        return closed;
+    }
+
+    /**
+     * DOULION: keeps every edge with probability p, counts the triangles of what's left exactly and divides by p^3,
+     * since a triangle survives only if all three of its edges do. This is repeated with different coin flips and the
+     * spread of the results gives the interval. Each trial touches every edge once and enumerates a graph with about
+     * p times the edges and p^3 times the triangles.
+     *
+     * @param p      fraction of edges to keep, in (0, 1].
+     * @param trials independent repeats, at least 2.
+     * @return estimate of {@link TriangleCounter#countTriangles()}.
+     */
+    public Estimate sparsifiedCount(double p, int trials) {
+        if (p <= 0 || p > 1)
+            throw new IllegalArgumentException("p has to be in (0, 1], got " + p);
+        if (trials < 2)
+            throw new IllegalArgumentException("Need at least two trials for an interval, got " + trials);
+        double[] values = new double[trials];
+        for (int t = 0; t < trials; t++) {
+            CSRGraph<N> sparse = sparsify(p, this.random.nextLong());
+            long[] found = new long[1];
+            TriangleCounter.forEachTriangle(sparse, Algorithm.FORWARD, false, (a, b, c) -> {
+                found[0]++;
+                return true;
+            });
+            values[t] = found[0] / (p * p * p);
+        }
+        return Estimate.ofTrials(values);
+    }
+
+    /**
+     * The coin for an edge is a hash of the seed and both ends, so both directions of it agree without storing
+     * anything.
+     */
+    private CSRGraph<N> sparsify(double p, long seed) {
+        int n = this.g.nodeCount();
+        int[] offsets = this.g.getOffsets();
+        int[] neighbours = this.g.getNeighbours();
+        long threshold = (long) (p * (1L << 53));
+        int[] kept = new int[n + 1];
+        for (int u = 0; u < n; u++)
+            for (int i = offsets[u]; i < offsets[u + 1]; i++)
+                if (keep(seed, u, neighbours[i], threshold))
+                    kept[u + 1]++;
+        for (int u = 0; u < n; u++)
+            kept[u + 1] += kept[u];
+        int[] sparse = new int[kept[n]];
+        int write = 0;
+        for (int u = 0; u < n; u++)
+            for (int i = offsets[u]; i < offsets[u + 1]; i++)
+                if (keep(seed, u, neighbours[i], threshold))
+                    sparse[write++] = neighbours[i];
+        return new CSRGraph<>(kept, sparse, this.g.getNodes(), null);
+    }
+
+    private static boolean keep(long seed, int u, int v, long threshold) {
+        long key = u < v ? ((long) u << 32) | v : ((long) v << 32) | u;
+        // murmur3 finalizer
+        long h = seed ^ key;
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (h >>> 11) < threshold;
+    }
+
+    private int indexOf(N n) {
+        int u = this.g.indexOf(n);
+        if (u < 0)
+            throw new IllegalArgumentException("Node " + n + " is not an element of this graph.");
+        return u;
+    }
+}
@@ -1,219 +1,172 @@
 package com.trianglez;
 
 import com.google.common.graph.Graph;
-import com.google.common.hash.BloomFilter;
-import com.google.common.hash.Funnel;
-import com.google.common.hash.PrimitiveSink;
+import com.trianglez.graph.CSRGraph;
 import com.trianglez.node.Node;
 
-import javax.annotation.ParametersAreNonnullByDefault;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-public class TriangleFinder<N extends Node> {
+/**
+ * A {@link TriangleCounter} that also keeps every local {@link Triangle} of every node around.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class TriangleFinder<N extends Node> extends TriangleCounter<N> {
 
-    private Graph<N> g;
     private Map<N, List<Triangle<N>>> trianglesMap;
-    private boolean parallelism;
 
     public TriangleFinder(final Graph<N> g, boolean parallelism) throws Exception {
-        if (g.allowsSelfLoops() || g.isDirected()) {
-            throw new Exception("Only works with undirected, self-loopless graphs. Sorry!");
-        }
-        this.g = g;
-        this.parallelism = parallelism;
-        forEachNode();
+        super(g, parallelism);
     }
 
-    /**
-     * Finds all local triangles and initializes sets trianglesMap.
-     */
-    private void forEachNode() {
-        Stream<N> nodes = this.parallelism ? this.g.nodes().parallelStream() : this.g.nodes().stream();
-        this.trianglesMap = nodes.map(start -> {
-            LocalTriangles localTriangles = new LocalTriangles(start);
-            ArrayList<N> adjNS = new ArrayList<>(this.g.adjacentNodes(start));
-            IntStream.range(0, adjNS.size() - 1).forEach(i -> {
-                N first = adjNS.get(i);
-                adjNS.stream().skip(i + 1)
-                        .forEach(second -> {
-                            if (this.g.hasEdgeConnecting(first, second)) {
-                                localTriangles.getTriangles().add(new Triangle<>(start, first, second));
-                            }
-                        });
-
-            });
-            return localTriangles;
-        }).collect(Collectors.toMap(LocalTriangles::getKey, LocalTriangles::getTriangles));
+    public TriangleFinder(final Graph<N> g, boolean parallelism, Algorithm algorithm) throws Exception {
+        super(g, parallelism, algorithm);
     }
 
-    public Map<N, List<Triangle<N>>> getTriangles() {
-        return trianglesMap;
+    /**
+     * @param metrics gets what the run does, including the conversion of g, can be null.
+     */
+    public TriangleFinder(final Graph<N> g, boolean parallelism, Algorithm algorithm, RunMetrics metrics)
+            throws Exception {
+        super(g, parallelism, algorithm, metrics);
     }
 
     /**
-     * Sums up the count of each vertex's local trianglesMap in the Graph.
-     *
-     * @return Count of all local triangles.
+     * Skips the conversion from a Guava {@link Graph}, e.g. for graphs from
+     * {@link com.trianglez.readers.FBGraphReader#getCSRGraph()}.
      */
-    public long countLocalTriangles() {
-        Stream<N> localTrianglesStream = this.parallelism ?
-                this.trianglesMap.keySet().parallelStream() : this.trianglesMap.keySet().stream();
+    public TriangleFinder(final CSRGraph<N> g, boolean parallelism) {
+        super(g, parallelism);
+    }
 
-        return localTrianglesStream
-                .map(this.trianglesMap::get)
-                .mapToLong(List::size)
-                .sum();
+    public TriangleFinder(final CSRGraph<N> g, boolean parallelism, Algorithm algorithm) {
+        super(g, parallelism, algorithm);
     }
 
     /**
-     * Get a flat stream of all local triangles.
-     *
-     * @return Flattened stream of each vertex's local Triangles.
+     * @param pool where to run, or null to run on the calling thread.
      */
-    public Stream<Triangle<N>> streamTriangles() {
-        return this.trianglesMap.keySet().stream()
-                .map(this.trianglesMap::get)
-                .flatMap(List::stream);
+    public TriangleFinder(final CSRGraph<N> g, Algorithm algorithm, ForkJoinPool pool) {
+        super(g, algorithm, pool);
     }
 
     /**
-     * Clustering Coefficient of a node on an undirected graph is
-     * (2 * count(trianglesMap[n]) / (degree[n] * (degree[n] - 1))
-     *
-     * @param n The node to calculate a clustering coefficient for.
-     * @return clustering coefficient of node n.
+     * @param pool    where to run, or null to run on the calling thread.
+     * @param metrics gets what the run does, can be null.
      */
-    public double clusteringCoefficient(N n) {
-        double ki = g.degree(n);
-        if (ki < 2) // will result in divide by zero
-            return -1d;
-        double li = this.trianglesMap.get(n).size();
-        double top = 2d * li;
-        double bottom = ki * (ki - 1d);
-        return top / bottom;
+    public TriangleFinder(final CSRGraph<N> g, Algorithm algorithm, ForkJoinPool pool, RunMetrics metrics) {
+        super(g, algorithm, pool, metrics);
     }
 
     /**
-     * Find total num triangles divided by total num possible triangles.
-     *
-     * @return global clustering coefficient.
+     * Finds all local triangles and initializes trianglesMap and the local counts. If the engine finds each triangle
+     * only once, the same {@link Triangle} gets added to the lists of all three of its nodes.
      */
-    public double globalClusteringCoefficient() {
-        Stream<N> s = this.parallelism ? this.g.nodes().parallelStream() : this.g.nodes().stream();
-        long n = countLocalTriangles();
-        long k = s.mapToLong(node -> {
-            long x = this.g.adjacentNodes(node).size();
-            return x * (x - 1);
-        }).sum();
-        return (double) n / k;
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected void forEachNode() {
+        long start = System.nanoTime();
+        TriangleEngine engine = engine(false);
+        List<Triangle<N>>[] local = new List[this.g.nodeCount()];
+        for (int u = 0; u < local.length; u++)
+            local[u] = new ArrayList<>();
+
+        TriangleVisitor visitor = !engine.unique() ?
+                (a, b, c) -> {
+                    addTriangle(local[a], new Triangle<>(this.g.node(a), this.g.node(b), this.g.node(c)));
+                    return true;
+                } :
+                (a, b, c) -> {
+                    Triangle<N> triangle = new Triangle<>(this.g.node(a), this.g.node(b), this.g.node(c));
+                    addTriangle(local[a], triangle);
+                    addTriangle(local[b], triangle);
+                    addTriangle(local[c], triangle);
+                    return true;
+                };
+        BalancedScheduler.run(engine, this.pool, (root, from, to) -> engine.visit(root, from, to, visitor));
+        phase(RunMetrics.Phase.ENUMERATE, start);
+
+        start = System.nanoTime();
+        this.trianglesMap = new HashMap<>(local.length * 2);
+        this.localCounts = new long[local.length];
+        for (int u = 0; u < local.length; u++) {
+            this.trianglesMap.put(this.g.node(u), local[u]);
+            this.localCounts[u] = local[u].size();
+        }
+        phase(RunMetrics.Phase.COLLECT, start);
     }
 
     /**
-     * @return average clustering coefficient of nodes in the graph.
+     * Lists are shared between threads when the engine finds triangles once, or when a hub's work gets split up.
      */
-    public double avgClusteringCoefficient() {
-        Stream<N> keyStream = this.parallelism ?
-                this.trianglesMap.keySet().parallelStream() :
-                this.trianglesMap.keySet().stream();
-        return keyStream
-                .mapToDouble(this::clusteringCoefficient)
-                .filter(value -> value != -1d) // filter out the would-be NaN's
-                .average().orElse(-1);
+    private void addTriangle(List<Triangle<N>> list, Triangle<N> triangle) {
+        if (this.pool != null) {
+            synchronized (list) {
+                list.add(triangle);
+            }
+        } else {
+            list.add(triangle);
+        }
     }
 
+    public Map<N, List<Triangle<N>>> getTriangles() {
+        return trianglesMap;
+    }
 
     /**
-     * Uses a {@link BloomFilter<Triangle>} and {@link HashSet<Triangle>} to generate a set of unique triangles where
-     * uniqueness is defined by the nodes included in the triangle. E.g. Triangle(a, b, c) == Triangle(c, b, a), so
-     * only one of them would be included in the set.
+     * Get a flat stream of all local triangles.
      *
-     * @return A {@link Set<Triangle>}, {@link Triangle<N>}.
+     * @return Flattened stream of each vertex's local Triangles.
      */
-    public Set<Triangle<N>> uniqueTriangles(boolean useBloomFilter) {
-        if (useBloomFilter) {
-            BloomFilter<Triangle<N>> triangleBloomFilter = BloomFilter.create(
-                    new TriangleFunnel<>(),
-                    this.countLocalTriangles());
-
-            Set<Triangle<N>> triangleSet = new HashSet<>();
-            this.trianglesMap.keySet().stream()
-                    .map(trianglesMap::get)
-                    .flatMap(List::stream)
-                    .forEach(triangle -> {
-                        if (triangleBloomFilter.mightContain(triangle)) {
-                            if (triangleSet.add(triangle)) {
-                                triangleBloomFilter.put(triangle);
-                            }
-                        } else {
-                            triangleBloomFilter.put(triangle);
-                            triangleSet.add(triangle);
-                        }
-                    });
-            return triangleSet;
-        } else {
-            Set<Triangle<N>> triangleSet = new HashSet<>();
-            this.trianglesMap.keySet().stream()
-                    .map(trianglesMap::get)
-                    .flatMap(List::stream)
-                    .forEach(triangleSet::add);
-            return triangleSet;
-        }
+    public Stream<Triangle<N>> streamTriangles() {
+        return this.trianglesMap.keySet().stream()
+                .map(this.trianglesMap::get)
+                .flatMap(List::stream);
     }
 
-    public List<Triangle<N>> uniqueTrianglesBloomOnly() {
-        BloomFilter<Triangle<N>> triangleBloomFilter = BloomFilter.create(
-                new TriangleFunnel<>(),
-                this.countLocalTriangles());
-
-        List<Triangle<N>> triangleList = new ArrayList<>();
-        this.trianglesMap.keySet().stream()
-                .map(trianglesMap::get)
-                .flatMap(List::stream)
-                .forEach(triangle -> {
-                    if (!triangleBloomFilter.mightContain(triangle)) {
-                        triangleBloomFilter.put(triangle);
-                        triangleList.add(triangle);
-                    }
-                });
-        return triangleList;
+    /**
+     * Every triangle is in the list of each of its three nodes, so keeping it only in the list of its smallest node
+     * (the first of {@link Triangle#getNodes()}) gives each one exactly once. Nodes don't need to know about each other
+     * for this, so there's no set or filter shared between them, it runs in parallel with parallelism, and the only
+     * memory used is the result.
+     *
+     * @return every unique triangle once, in no particular order.
+     */
+    public List<Triangle<N>> distinctTriangles() {
+        long start = System.nanoTime();
+        Stream<N> nodes = this.g.getNodes().stream();
+        List<Triangle<N>> distinct = (this.parallelism ? nodes.parallel() : nodes)
+                .flatMap(n -> this.trianglesMap.get(n).stream().filter(triangle -> triangle.first().equals(n)))
+                .collect(Collectors.toList());
+        phase(RunMetrics.Phase.DEDUPE, start);
+        return distinct;
     }
 
     /**
-     * Auxiliary class to keep track of local triangles for a node. Gets mapped down into a {@link Map} where
-     * K = {@link N} and V = {@link List<Triangle>}, {@link Triangle<N>}.
+     * Generates a set of unique triangles where uniqueness is defined by the nodes included in the triangle. E.g.
+     * Triangle(a, b, c) == Triangle(c, b, a), so only one of them would be included in the set.
+     * <p>
+     * This used to push every local triangle through a {@link HashSet} and optionally a Bloom filter. Now it's a copy
+     * of {@link #distinctTriangles()}, which is already exact, so there's nothing left for a filter to do.
+     *
+     * @param useBloomFilter doesn't make a difference anymore.
+     * @return A {@link Set<Triangle>}, {@link Triangle<N>}.
      */
-    class LocalTriangles {
-        private N key;
-        private List<Triangle<N>> triangles;
-
-        LocalTriangles(N key) {
-            this.key = key;
-            triangles = new ArrayList<>();
-        }
-
-        N getKey() {
-            return key;
-        }
-
-        List<Triangle<N>> getTriangles() {
-            return triangles;
-        }
+    public Set<Triangle<N>> uniqueTriangles(boolean useBloomFilter) {
+        return new HashSet<>(distinctTriangles());
     }
 
     /**
-     * A TriangleFunnel specifically for the BloomFilter. Apparently you can't use a method reference to the funnel in
-     * {@link Triangle<N>} because the type parameter doesn't get inferred?
+     * Used to skip every triangle a Bloom filter thought it had seen, dropping real ones on false positives.
      *
-     * @param <N> Same as the containing class.
+     * Now it's just another name for {@link #distinctTriangles()}.
+     *
+     * @return the same as {@link #distinctTriangles()}, which is exact.
      */
-    static class TriangleFunnel<N extends Node> implements Funnel<Triangle<N>> {
-        @Override
-        @ParametersAreNonnullByDefault
-        public void funnel(Triangle<N> triangle, PrimitiveSink primitiveSink) {
-            triangle.getNodes().stream().mapToInt(N::hashCode).forEach(primitiveSink::putInt);
-        }
+    public List<Triangle<N>> uniqueTrianglesBloomOnly() {
+        return distinctTriangles();
     }
 }
@@ -0,0 +1,13 @@
+package com.trianglez;
+
+/**
+ * Receives triangles as three node indices of a {@link com.trianglez.graph.CSRGraph}. Use
+ * {@link com.trianglez.graph.CSRGraph#node(int)} to get the actual nodes back.
+ */
+@FunctionalInterface
+public interface TriangleVisitor {
+    /**
+     * @return true to keep going, false to stop the enumeration early.
+     */
+    boolean visit(int a, int b, int c);
+}
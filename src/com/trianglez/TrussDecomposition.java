@@ -0,0 +1,203 @@
+package com.trianglez;
+
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.Node;
+
+import java.util.Arrays;
+
+/**
+ * The k-truss of a graph is its biggest subgraph in which every edge is a side of at least k - 2 triangles. The
+ * trussness of an edge is the biggest k whose k-truss still has it, so high trussness edges sit in tightly knit groups
+ * of nodes. Every edge gets its trussness by peeling (Wang and Cheng, VLDB 2012): take an edge with the least support
+ * left, fix its trussness at that support + 2, and take one off the support of the other two sides of every triangle
+ * it was still in. Edges are kept in a bucket queue sorted by support, like the core decomposition of Batagelj and
+ * Zaversnik, so every step is O(1) besides intersecting the rows of both ends.
+ * <p>
+ * The supports to start from are computed with parallelism, the peeling itself is sequential. Memory is a handful of
+ * ints per edge.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class TrussDecomposition<N extends Node> {
+
+    private final CSRGraph<N> g;
+    /**
+     * Trussness per position of the neighbours of g, the same for both directions of an edge.
+     */
+    private final int[] trussness;
+    private final int maxTruss;
+
+    /**
+     * Reuses the edge support of a counter that already computed it.
+     */
+    public TrussDecomposition(TriangleCounter<N> counter) {
+        this(counter.getGraph(), counter.getEdgeSupport());
+    }
+
+    public TrussDecomposition(final CSRGraph<N> g, boolean parallelism) {
+        this(g, TriangleCounter.edgeSupport(g, parallelism));
+    }
+
+    private TrussDecomposition(final CSRGraph<N> g, int[] edgeSupport) {
+        this.g = g;
+        int[] offsets = g.getOffsets();
+        int[] neighbours = g.getNeighbours();
+        int[] reverse = g.reverseEdges();
+        int m = (int) g.edgeCount();
+
+        // edge e is stored once, at position edges[e] in the row of its smaller end
+        int[] edges = new int[m];
+        int[] owners = new int[m];
+        int[] edgeOf = new int[neighbours.length];
+        int[] support = new int[m];
+        int e = 0;
+        for (int u = 0; u < g.nodeCount(); u++) {
+            for (int p = offsets[u]; p < offsets[u + 1]; p++) {
+                if (neighbours[p] > u) {
+                    edges[e] = p;
+                    owners[e] = u;
+                    support[e] = edgeSupport[p];
+                    edgeOf[p] = e;
+                    edgeOf[reverse[p]] = e;
+                    e++;
+                }
+            }
+        }
+
+        // bucket queue: order holds the edges sorted by support, starts[s] is where support s begins
+        int maxSupport = 0;
+        for (int s : support)
+            maxSupport = Math.max(maxSupport, s);
+        int[] starts = new int[maxSupport + 2];
+        for (int s : support)
+            starts[s + 1]++;
+        for (int s = 0; s <= maxSupport; s++)
+            starts[s + 1] += starts[s];
+        int[] order = new int[m];
+        int[] where = new int[m];
+        int[] next = Arrays.copyOf(starts, maxSupport + 1);
+        for (e = 0; e < m; e++) {
+            where[e] = next[support[e]]++;
+            order[where[e]] = e;
+        }
+
+        int[] truss = new int[m];
+        int max = m == 0 ? 0 : 2;
+        for (int i = 0; i < m; i++) {
+            e = order[i];
+            int k = support[e];
+            // peeled edges have a trussness, so 0 means still there
+            truss[e] = k + 2;
+            max = Math.max(max, k + 2);
+            int u = owners[e];
+            int v = neighbours[edges[e]];
+            int a = offsets[u];
+            int b = offsets[v];
+            while (a < offsets[u + 1] && b < offsets[v + 1]) {
+                if (neighbours[a] < neighbours[b]) {
+                    a++;
+                } else if (neighbours[a] > neighbours[b]) {
+                    b++;
+                } else {
+                    int uw = edgeOf[a++];
+                    int vw = edgeOf[b++];
+                    if (truss[uw] == 0 && truss[vw] == 0) {
+                        lower(uw, k, support, starts, order, where);
+                        lower(vw, k, support, starts, order, where);
+                    }
+                }
+            }
+        }
+
+        this.trussness = new int[neighbours.length];
+        for (int p = 0; p < neighbours.length; p++)
+            this.trussness[p] = truss[edgeOf[p]];
+        this.maxTruss = max;
+    }
+
+    /**
+     * Takes one off the support of edge f, unless it's already down to the level being peeled. It swaps places with
+     * the first edge of its bucket, which then starts one later, so f ends up last in the bucket below.
+     */
+    private static void lower(int f, int k, int[] support, int[] starts, int[] order, int[] where) {
+        int s = support[f];
+        if (s <= k)
+            return;
+        int first = starts[s];
+        int other = order[first];
+        order[first] = f;
+        order[where[f]] = other;
+        where[other] = where[f];
+        where[f] = first;
+        starts[s]++;
+        support[f] = s - 1;
+    }
+
+    public CSRGraph<N> getGraph() {
+        return this.g;
+    }
+
+    /**
+     * @return trussness per position of {@link CSRGraph#getNeighbours()}, the same for both directions of an edge.
+     * Don't modify it.
+     */
+    public int[] getTrussness() {
+        return this.trussness;
+    }
+
+    /**
+     * @return trussness of the edge between u and v, at least 2.
+     * @throws IllegalArgumentException if there's no such edge.
+     */
+    public int trussness(N u, N v) {
+        int a = this.g.indexOf(u);
+        int b = this.g.indexOf(v);
+        int[] offsets = this.g.getOffsets();
+        int p = a < 0 || b < 0 ? -1 : Arrays.binarySearch(this.g.getNeighbours(), offsets[a], offsets[a + 1], b);
+        if (p < 0)
+            throw new IllegalArgumentException("No edge between " + u + " and " + v);
+        return this.trussness[p];
+    }
+
+    /**
+     * @return the biggest k with a non-empty k-truss, 0 for a graph without edges.
+     */
+    public int maxTruss() {
+        return this.maxTruss;
+    }
+
+    /**
+     * @return number of edges in the k-truss.
+     */
+    public long edgeCount(int k) {
+        long count = 0;
+        for (int t : this.trussness)
+            if (t >= k)
+                count++;
+        return count / 2;
+    }
+
+    /**
+     * The nodes stay the same with the same indices, the ones without edges in the k-truss just have degree 0.
+     *
+     * @return the k-truss, the edges with trussness at least k.
+     */
+    public CSRGraph<N> kTruss(int k) {
+        int n = this.g.nodeCount();
+        int[] offsets = this.g.getOffsets();
+        int[] neighbours = this.g.getNeighbours();
+        int[] kept = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            kept[u + 1] = kept[u];
+            for (int p = offsets[u]; p < offsets[u + 1]; p++)
+                if (this.trussness[p] >= k)
+                    kept[u + 1]++;
+        }
+        int[] truss = new int[kept[n]];
+        int write = 0;
+        for (int p = 0; p < neighbours.length; p++)
+            if (this.trussness[p] >= k)
+                truss[write++] = neighbours[p];
+        return new CSRGraph<>(kept, truss, this.g.getNodes(), null);
+    }
+}
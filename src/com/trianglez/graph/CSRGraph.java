@@ -0,0 +1,290 @@
+package com.trianglez.graph;
+
+import com.google.common.graph.Graph;
+import com.trianglez.node.Node;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, undirected, self-loopless graph stored as compressed sparse rows. Every node is given a dense int
+ * index in [0, nodeCount()) and the neighbours of node <code>u</code> are the sorted indices
+ * <code>neighbours[offsets[u]] .. neighbours[offsets[u + 1] - 1]</code>.
+ * <p>
+ * The triangle algorithms only ever touch the int arrays. Mapping back to {@link N} happens with {@link #node(int)}
+ * and {@link #indexOf(Node)} at the API boundary.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class CSRGraph<N extends Node> {
+
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final List<N> nodes;
+    private final NodeDictionary<N> dictionary;
+    private volatile Map<N, Integer> indices;
+    private volatile int[] degreeOrder;
+    private volatile int[] reverseEdges;
+    private volatile int[] degeneracyOrder;
+
+    /**
+     * Used by {@link CSRGraphBuilder}. The arrays are not copied.
+     *
+     * @param offsets    n + 1 row offsets into <code>neighbours</code>.
+     * @param neighbours sorted, de-duplicated adjacency rows.
+     * @param nodes      index to node mapping.
+     * @param dictionary the dictionary that handed out the indices, or null.
+     */
+    CSRGraph(int[] offsets, int[] neighbours, List<N> nodes, NodeDictionary<N> dictionary) {
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Wraps arrays that already form a valid CSR, e.g. ones loaded from disk. Nothing is copied or checked.
+     *
+     * @param offsets     n + 1 row offsets into <code>neighbours</code>.
+     * @param neighbours  sorted, de-duplicated, symmetric adjacency rows without self loops.
+     * @param nodes       index to node mapping.
+     * @param degreeOrder a precomputed {@link #degreeOrder()}, or null to compute it when needed.
+     */
+    public CSRGraph(int[] offsets, int[] neighbours, List<N> nodes, int[] degreeOrder) {
+        this(offsets, neighbours, nodes, (NodeDictionary<N>) null);
+        this.degreeOrder = degreeOrder;
+    }
+
+    /**
+     * Snapshots a Guava {@link Graph}. Later changes to <code>g</code> are not reflected.
+     *
+     * @param g an undirected graph without self loops.
+     * @return the CSR form of <code>g</code>.
+     */
+    public static <N extends Node> CSRGraph<N> of(Graph<N> g) {
+        CSRGraphBuilder<N> builder = new CSRGraphBuilder<>(g.nodes().size());
+        g.nodes().forEach(builder::addNode);
+        g.edges().forEach(e -> builder.putEdge(e.nodeU(), e.nodeV()));
+        return builder.build();
+    }
+
+    public int nodeCount() {
+        return this.nodes.size();
+    }
+
+    /**
+     * @return number of undirected edges.
+     */
+    public long edgeCount() {
+        return this.neighbours.length / 2;
+    }
+
+    public int degree(int u) {
+        return this.offsets[u + 1] - this.offsets[u];
+    }
+
+    /**
+     * Row offsets, exposed for the triangle engines. Don't modify it.
+     *
+     * @return the offsets array of length nodeCount() + 1.
+     */
+    public int[] getOffsets() {
+        return this.offsets;
+    }
+
+    /**
+     * Concatenated sorted adjacency rows, exposed for the triangle engines. Don't modify it.
+     *
+     * @return the neighbours array of length 2 * edgeCount().
+     */
+    public int[] getNeighbours() {
+        return this.neighbours;
+    }
+
+    /**
+     * @param u node index.
+     * @return the node with index u.
+     */
+    public N node(int u) {
+        return this.nodes.get(u);
+    }
+
+    public List<N> getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Asks the dictionary the graph was built with. Without one, the reverse mapping is only built the first time it's
+     * needed since the triangle engines never use it.
+     *
+     * @param n a node.
+     * @return index of n, or -1 if n is not in the graph.
+     */
+    public int indexOf(N n) {
+        if (this.dictionary != null) {
+            // the builder may have handed out more indices since this graph was built
+            int i = this.dictionary.indexOf(n);
+            return i < nodeCount() ? i : -1;
+        }
+        Map<N, Integer> idx = this.indices;
+        if (idx == null) {
+            idx = new HashMap<>(this.nodes.size() * 2);
+            for (int i = 0; i < this.nodes.size(); i++)
+                idx.put(this.nodes.get(i), i);
+            this.indices = idx;
+        }
+        Integer i = idx.get(n);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Node indices sorted by (degree, index), computed with a counting sort the first time it's needed. Don't modify
+     * it.
+     *
+     * @return rank to node index.
+     */
+    public int[] degreeOrder() {
+        int[] order = this.degreeOrder;
+        if (order == null) {
+            int n = nodeCount();
+            int maxDegree = 0;
+            for (int u = 0; u < n; u++)
+                maxDegree = Math.max(maxDegree, degree(u));
+            int[] buckets = new int[maxDegree + 2];
+            for (int u = 0; u < n; u++)
+                buckets[degree(u) + 1]++;
+            for (int d = 0; d <= maxDegree; d++)
+                buckets[d + 1] += buckets[d];
+            // stable, so ties stay ordered by index
+            order = new int[n];
+            for (int u = 0; u < n; u++)
+                order[buckets[degree(u)]++] = u;
+            this.degreeOrder = order;
+        }
+        return order;
+    }
+
+    /**
+     * Node indices in the order they'd be taken out by repeatedly removing a node of least degree left (Batagelj and
+     * Zaversnik, with a bucket per degree so it's O(m)). Pointing every edge from the earlier to the later node leaves
+     * every node with at most degeneracy outgoing edges, which is as small as any order gets. Computed the first time
+     * it's needed. Don't modify it.
+     *
+     * @return rank to node index.
+     */
+    public int[] degeneracyOrder() {
+        int[] order = this.degeneracyOrder;
+        if (order == null) {
+            int n = nodeCount();
+            int[] degrees = new int[n];
+            int maxDegree = 0;
+            for (int u = 0; u < n; u++) {
+                degrees[u] = degree(u);
+                maxDegree = Math.max(maxDegree, degrees[u]);
+            }
+            // order holds the nodes sorted by degree left, starts[d] is where degree d begins
+            int[] starts = new int[maxDegree + 2];
+            for (int u = 0; u < n; u++)
+                starts[degrees[u] + 1]++;
+            for (int d = 0; d <= maxDegree; d++)
+                starts[d + 1] += starts[d];
+            order = new int[n];
+            int[] where = new int[n];
+            int[] next = Arrays.copyOf(starts, maxDegree + 1);
+            for (int u = 0; u < n; u++) {
+                where[u] = next[degrees[u]]++;
+                order[where[u]] = u;
+            }
+            for (int i = 0; i < n; i++) {
+                int u = order[i];
+                for (int p = this.offsets[u]; p < this.offsets[u + 1]; p++) {
+                    int v = this.neighbours[p];
+                    int d = degrees[v];
+                    if (d > degrees[u]) {
+                        // swap v to the front of its bucket and move the bucket up by one
+                        int first = starts[d];
+                        int w = order[first];
+                        order[first] = v;
+                        order[where[v]] = w;
+                        where[w] = where[v];
+                        where[v] = first;
+                        starts[d]++;
+                        degrees[v] = d - 1;
+                    }
+                }
+            }
+            this.degeneracyOrder = order;
+        }
+        return order;
+    }
+
+    /**
+     * Position of the other direction of every edge: if neighbours[p] is v in the row of u, neighbours[reverse[p]] is
+     * u in the row of v. Gives per edge values one slot per direction that can be kept in sync. Computed in one pass
+     * the first time it's needed, since going over the rows in order meets the smaller end of every edge in the
+     * order it appears in the row of the bigger end. Don't modify it.
+     *
+     * @return reverse position per position of {@link #getNeighbours()}.
+     */
+    public int[] reverseEdges() {
+        int[] reverse = this.reverseEdges;
+        if (reverse == null) {
+            int n = nodeCount();
+            reverse = new int[this.neighbours.length];
+            int[] next = Arrays.copyOf(this.offsets, n);
+            for (int u = 0; u < n; u++) {
+                for (int p = this.offsets[u]; p < this.offsets[u + 1]; p++) {
+                    int v = this.neighbours[p];
+                    if (v > u) {
+                        int q = next[v]++;
+                        reverse[p] = q;
+                        reverse[q] = p;
+                    }
+                }
+            }
+            this.reverseEdges = reverse;
+        }
+        return reverse;
+    }
+
+    /**
+     * Binary search in the row of u.
+     *
+     * @return true if u and v are adjacent.
+     */
+    public boolean hasEdge(int u, int v) {
+        return Arrays.binarySearch(this.neighbours, this.offsets[u], this.offsets[u + 1], v) >= 0;
+    }
+
+    /**
+     * @return number of nodes adjacent to both u and v.
+     */
+    public int commonNeighbours(int u, int v) {
+        return Intersections.count(this.neighbours, this.offsets[u], this.offsets[u + 1],
+                this.neighbours, this.offsets[v], this.offsets[v + 1]);
+    }
+
+    /**
+     * Intersects the row of u with the row of each of its neighbours, so only u's neighbourhood gets looked at. Handy
+     * when only a few nodes are of interest and counting the whole graph isn't worth it.
+     *
+     * @return number of triangles u is a corner of.
+     */
+    public long localTriangles(int u) {
+        long sum = 0;
+        for (int i = this.offsets[u]; i < this.offsets[u + 1]; i++)
+            sum += commonNeighbours(u, this.neighbours[i]);
+        // every triangle (u, v, w) is seen from v and from w
+        return sum / 2;
+    }
+
+    /**
+     * @return a copy of the adjacent node indices of u.
+     */
+    public int[] adjacent(int u) {
+        return Arrays.copyOfRange(this.neighbours, this.offsets[u], this.offsets[u + 1]);
+    }
+}
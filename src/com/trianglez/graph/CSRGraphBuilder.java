@@ -0,0 +1,141 @@
+package com.trianglez.graph;
+
+import com.trianglez.node.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects edges into a primitive int buffer and turns them into a {@link CSRGraph}. Similar to Guava's
+ * {@link com.google.common.graph.GraphBuilder} except nothing gets boxed per edge. Self loops and duplicate edges are
+ * dropped when building, so the result is always a simple undirected graph.
+ * <p>
+ * Not thread safe.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class CSRGraphBuilder<N extends Node> {
+
+    private final NodeDictionary<N> dictionary;
+    private int[] edges;
+    private int edgeEnds;
+
+    public CSRGraphBuilder() {
+        this(16);
+    }
+
+    /**
+     * @param expectedNodes a sizing hint.
+     */
+    public CSRGraphBuilder(int expectedNodes) {
+        this(new HashNodeDictionary<>(expectedNodes));
+    }
+
+    /**
+     * @param dictionary gives out node indices, e.g. one that knows how to do it without hashing the nodes.
+     */
+    public CSRGraphBuilder(NodeDictionary<N> dictionary) {
+        this.dictionary = dictionary;
+        this.edges = new int[Math.max(16, dictionary.size() * 2)];
+    }
+
+    /**
+     * Adds a node if it hasn't been seen yet.
+     *
+     * @param n the node.
+     * @return the dense index of n.
+     */
+    public int addNode(N n) {
+        return this.dictionary.intern(n);
+    }
+
+    public int nodeCount() {
+        return this.dictionary.size();
+    }
+
+    public void putEdge(N u, N v) {
+        putEdge(addNode(u), addNode(v));
+    }
+
+    /**
+     * @param u index returned by {@link #addNode(Node)} or the dictionary.
+     * @param v index returned by {@link #addNode(Node)} or the dictionary.
+     */
+    public void putEdge(int u, int v) {
+        if (u < 0 || v < 0 || u >= nodeCount() || v >= nodeCount())
+            throw new IndexOutOfBoundsException("No node with index " + Math.max(u, v));
+        if (this.edgeEnds + 2 > this.edges.length)
+            this.edges = Arrays.copyOf(this.edges, this.edges.length * 2);
+        this.edges[this.edgeEnds++] = u;
+        this.edges[this.edgeEnds++] = v;
+    }
+
+    /**
+     * Adds a batch of edges with one copy, e.g. ones parsed by another thread.
+     *
+     * @param edges pairs of indices, edge i is (edges[2 * i], edges[2 * i + 1]).
+     * @param count number of edges to take from the start of edges.
+     */
+    public void putEdges(int[] edges, int count) {
+        int n = nodeCount();
+        for (int i = 0; i < 2 * count; i++)
+            if (edges[i] < 0 || edges[i] >= n)
+                throw new IndexOutOfBoundsException("No node with index " + edges[i]);
+        if (this.edgeEnds + 2L * count > this.edges.length)
+            this.edges = Arrays.copyOf(this.edges, Math.toIntExact(Math.max(this.edges.length * 2L,
+                    this.edgeEnds + 2L * count)));
+        System.arraycopy(edges, 0, this.edges, this.edgeEnds, 2 * count);
+        this.edgeEnds += 2 * count;
+    }
+
+    /**
+     * Counting sort of both edge directions into rows, then each row gets sorted and de-duplicated in place.
+     *
+     * @return the built graph. The builder can keep being used afterwards.
+     */
+    public CSRGraph<N> build() {
+        int n = nodeCount();
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < this.edgeEnds; i += 2) {
+            if (this.edges[i] == this.edges[i + 1])
+                continue;
+            offsets[this.edges[i] + 1]++;
+            offsets[this.edges[i + 1] + 1]++;
+        }
+        for (int u = 0; u < n; u++)
+            offsets[u + 1] += offsets[u];
+
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] neighbours = new int[offsets[n]];
+        for (int i = 0; i < this.edgeEnds; i += 2) {
+            int u = this.edges[i];
+            int v = this.edges[i + 1];
+            if (u == v)
+                continue;
+            neighbours[fill[u]++] = v;
+            neighbours[fill[v]++] = u;
+        }
+
+        // sort and squeeze out duplicates, shifting rows left as we go
+        int write = 0;
+        for (int u = 0; u < n; u++) {
+            int start = offsets[u];
+            int end = offsets[u + 1];
+            Arrays.sort(neighbours, start, end);
+            offsets[u] = write;
+            for (int i = start; i < end; i++) {
+                if (i > start && neighbours[i] == neighbours[i - 1])
+                    continue;
+                neighbours[write++] = neighbours[i];
+            }
+        }
+        offsets[n] = write;
+
+        List<N> nodes = new ArrayList<>(n);
+        for (int u = 0; u < n; u++)
+            nodes.add(this.dictionary.node(u));
+        return new CSRGraph<>(offsets, write == neighbours.length ? neighbours : Arrays.copyOf(neighbours, write),
+                nodes, this.dictionary);
+    }
+}
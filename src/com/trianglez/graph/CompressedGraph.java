@@ -0,0 +1,482 @@
+package com.trianglez.graph;
+
+import com.trianglez.node.Node;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * A {@link CSRGraph} with its rows gap encoded, like WebGraph does it: every row is sorted, so instead of the
+ * neighbours themselves the differences between consecutive ones are stored, as varints of 7 bits per byte. Close
+ * neighbours mean small differences and mostly one byte per neighbour instead of four, which works best after a
+ * {@link Reordering} that gives neighbours close indices, e.g. {@link Reordering.Strategy#DEGENERACY} or
+ * {@link Reordering.Strategy#RCM}.
+ * <p>
+ * Rows are cut into blocks of {@link #BLOCK} neighbours, and the first neighbour of every block but the first is kept
+ * in a skip table along with where its block starts. A {@link Cursor} looking for a neighbour of at least some value
+ * binary searches the skip table and only decodes the block it lands in, so rows can be intersected without decoding
+ * all of them. The skip table costs 8 bytes per block, an eighth of a byte per neighbour.
+ * <p>
+ * {@link #of(CSRGraph)} encodes a graph that's already on the heap. For one that isn't,
+ * {@link #of(PartitionedGraph.EdgeSource, IntFunction, long)} encodes the rows straight from the edges a range of nodes
+ * at a time, so the int rows never all exist at once.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class CompressedGraph<N extends Node> {
+
+    /**
+     * Neighbours per block.
+     */
+    public static final int BLOCK = 64;
+
+    private final List<N> nodes;
+    /**
+     * Where each row starts in bytes, n + 1 of them.
+     */
+    private final int[] offsets;
+    private final byte[] bytes;
+    private final long edgeCount;
+    private volatile Map<N, Integer> indices;
+
+    private CompressedGraph(List<N> nodes, int[] offsets, byte[] bytes, long edgeCount) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.offsets = offsets;
+        this.bytes = bytes;
+        this.edgeCount = edgeCount;
+    }
+
+    /**
+     * Encodes every row of g. Node indices stay the same, so reorder g first for smaller gaps.
+     * <p>
+     * A row is its degree, then its skip table, then the neighbours. The skip table has an entry for every block but
+     * the first: the first neighbour of the block and where the rest of the block starts, counted from the start of
+     * the row, 4 bytes each so they can be binary searched. The first neighbour is stored as its distance to the row's
+     * own index, zigzagged since it can be on either side, every other one as its gap to the one before minus 1. First
+     * neighbours of blocks are only in the skip table.
+     */
+    public static <N extends Node> CompressedGraph<N> of(CSRGraph<N> g) {
+        int n = g.nodeCount();
+        int[] gOffsets = g.getOffsets();
+        int[] neighbours = g.getNeighbours();
+
+        // sizes first, so the bytes get allocated once
+        int[] offsets = new int[n + 1];
+        for (int u = 0; u < n; u++)
+            offsets[u + 1] = end(offsets[u], rowSize(u, neighbours, gOffsets[u], gOffsets[u + 1]), u);
+
+        byte[] bytes = new byte[offsets[n]];
+        for (int u = 0; u < n; u++)
+            writeRow(bytes, offsets[u], u, neighbours, gOffsets[u], gOffsets[u + 1]);
+        return new CompressedGraph<>(g.getNodes(), offsets, bytes, g.edgeCount());
+    }
+
+    /**
+     * Encodes the rows straight from the edges, without a {@link CSRGraph} in between, so the heap holds the
+     * compressed rows and the int rows of one range of nodes at a time instead of all of them. The first pass over the
+     * edges counts degrees, then every range of nodes whose rows fit in budgetBytes takes one more pass that collects
+     * just their rows, which get sorted and encoded. Bigger budgets mean fewer passes.
+     * <p>
+     * Self loops are dropped and duplicate edges are merged, like {@link CSRGraphBuilder} does. Indices stay the ones
+     * the source uses, so the gaps are only as small as the source's numbering makes them.
+     *
+     * @param source      gets asked for the edges once, plus once per range of nodes.
+     * @param node        gives the node of each index from 0 until the biggest index in the edges, asked after the
+     *                    first pass.
+     * @param budgetBytes roughly how much heap the int rows of a range may take. A node whose row alone is bigger still
+     *                    gets a range of its own.
+     * @return the graph.
+     * @throws IOException if the source fails.
+     */
+    public static <N extends Node> CompressedGraph<N> of(PartitionedGraph.EdgeSource source, IntFunction<N> node,
+                                                         long budgetBytes) throws IOException {
+        // pass 1: degrees, duplicates included, which only bounds the rows
+        int[][] counted = {new int[16]};
+        int[] nodes = {0};
+        source.edges((u, v) -> {
+            if (u == v)
+                return;
+            int max = Math.max(u, v);
+            if (max >= counted[0].length)
+                counted[0] = Arrays.copyOf(counted[0], Math.max(max + 1, counted[0].length * 2));
+            nodes[0] = Math.max(nodes[0], max + 1);
+            counted[0][u]++;
+            counted[0][v]++;
+        });
+        int n = nodes[0];
+        int[] degrees = counted[0];
+        long rangeInts = Math.max(1, budgetBytes / 4);
+
+        int[] offsets = new int[n + 1];
+        byte[] bytes = new byte[Math.max(16, n)];
+        long ends = 0;
+        for (int lo = 0; lo < n; ) {
+            int hi = lo;
+            long ints = 0;
+            while (hi < n && (hi == lo || ints + degrees[hi] <= rangeInts))
+                ints += degrees[hi++];
+            int[] starts = new int[hi - lo + 1];
+            for (int u = lo; u < hi; u++)
+                starts[u - lo + 1] = starts[u - lo] + degrees[u];
+            int[] fill = Arrays.copyOf(starts, hi - lo);
+            int[] rows = new int[(int) ints];
+            int from = lo;
+            int to = hi;
+            source.edges((u, v) -> {
+                if (u == v)
+                    return;
+                if (u >= from && u < to)
+                    add(rows, starts, fill, u - from, v);
+                if (v >= from && v < to)
+                    add(rows, starts, fill, v - from, u);
+            });
+
+            for (int u = lo; u < hi; u++) {
+                int start = starts[u - lo];
+                Arrays.sort(rows, start, fill[u - lo]);
+                int end = start;
+                for (int i = start; i < fill[u - lo]; i++)
+                    if (end == start || rows[i] != rows[end - 1])
+                        rows[end++] = rows[i];
+                long size = rowSize(u, rows, start, end);
+                offsets[u + 1] = end(offsets[u], size, u);
+                if (offsets[u + 1] > bytes.length)
+                    bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8,
+                            Math.max(offsets[u + 1], bytes.length + (long) (bytes.length >> 1))));
+                writeRow(bytes, offsets[u], u, rows, start, end);
+                ends += end - start;
+            }
+            lo = hi;
+        }
+
+        List<N> list = new ArrayList<>(n);
+        for (int u = 0; u < n; u++)
+            list.add(node.apply(u));
+        return new CompressedGraph<>(list, offsets, Arrays.copyOf(bytes, offsets[n]), ends / 2);
+    }
+
+    private static void add(int[] rows, int[] starts, int[] fill, int row, int v) {
+        if (fill[row] == starts[row + 1])
+            throw new IllegalStateException("The edge source gave more edges than in its first pass.");
+        rows[fill[row]++] = v;
+    }
+
+    /**
+     * @return where the row of u ends, after one starting at start and taking size bytes.
+     */
+    private static int end(int start, long size, int u) {
+        if (start + size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Over 2GB of compressed rows, reached at node " + u);
+        return (int) (start + size);
+    }
+
+    /**
+     * @return bytes taken by the row of u holding row[from] until row[to], sorted.
+     */
+    private static long rowSize(int u, int[] row, int from, int to) {
+        int degree = to - from;
+        long size = varintLength(degree) + 8L * skipEntries(degree);
+        for (int p = from; p < to; p++) {
+            int k = p - from;
+            if (k == 0)
+                size += varintLength(zigzag(row[p] - u));
+            else if (k % BLOCK != 0)
+                size += varintLength(row[p] - row[p - 1] - 1);
+        }
+        return size;
+    }
+
+    /**
+     * Encodes the row of u holding row[from] until row[to] at bytes[at], see {@link #of(CSRGraph)} for the layout.
+     */
+    private static void writeRow(byte[] bytes, int at, int u, int[] row, int from, int to) {
+        int degree = to - from;
+        int write = writeVarint(bytes, at, degree);
+        int skip = write;
+        write += 8 * skipEntries(degree);
+        for (int p = from; p < to; p++) {
+            int k = p - from;
+            if (k == 0) {
+                write = writeVarint(bytes, write, zigzag(row[p] - u));
+            } else if (k % BLOCK == 0) {
+                writeInt(bytes, skip, row[p]);
+                writeInt(bytes, skip + 4, write - at);
+                skip += 8;
+            } else {
+                write = writeVarint(bytes, write, row[p] - row[p - 1] - 1);
+            }
+        }
+    }
+
+    private static int skipEntries(int degree) {
+        return degree == 0 ? 0 : (degree - 1) / BLOCK;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0)
+            length++;
+        return length;
+    }
+
+    private static int writeVarint(byte[] bytes, int at, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[at++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[at++] = (byte) value;
+        return at;
+    }
+
+    private static void writeInt(byte[] bytes, int at, int value) {
+        bytes[at] = (byte) value;
+        bytes[at + 1] = (byte) (value >>> 8);
+        bytes[at + 2] = (byte) (value >>> 16);
+        bytes[at + 3] = (byte) (value >>> 24);
+    }
+
+    private int readInt(int at) {
+        return (this.bytes[at] & 0xFF) | (this.bytes[at + 1] & 0xFF) << 8 | (this.bytes[at + 2] & 0xFF) << 16
+                | (this.bytes[at + 3] & 0xFF) << 24;
+    }
+
+    /**
+     * Walks one row at a time, forwards only. Not thread safe, use one per thread.
+     */
+    public final class Cursor {
+        private int row;
+        private int degree;
+        /**
+         * Where the row and its skip table start in bytes.
+         */
+        private int rowStart;
+        private int skipStart;
+        /**
+         * Position in the row of value, -1 before the first one.
+         */
+        private int k;
+        private int at;
+        private int value;
+
+        /**
+         * Moves to the start of the row of u.
+         */
+        public void reset(int u) {
+            this.row = u;
+            this.rowStart = offsets[u];
+            this.at = this.rowStart;
+            this.degree = readVarint();
+            this.skipStart = this.at;
+            this.at += 8 * skipEntries(this.degree);
+            this.k = -1;
+            this.value = -1;
+        }
+
+        /**
+         * @return the next neighbour, {@link Integer#MAX_VALUE} once the row is done.
+         */
+        public int next() {
+            if (++this.k >= this.degree) {
+                this.k = this.degree;
+                return this.value = Integer.MAX_VALUE;
+            }
+            if (this.k == 0) {
+                int z = readVarint();
+                this.value = this.row + ((z >>> 1) ^ -(z & 1));
+            } else if (this.k % BLOCK == 0) {
+                int skip = this.skipStart + 8 * (this.k / BLOCK - 1);
+                this.value = readInt(skip);
+                this.at = this.rowStart + readInt(skip + 4);
+            } else {
+                this.value += readVarint() + 1;
+            }
+            return this.value;
+        }
+
+        /**
+         * Jumps straight to the last block starting at or below target, then decodes from there.
+         *
+         * @return the first neighbour of at least target from here on, {@link Integer#MAX_VALUE} if there isn't one.
+         */
+        public int advanceTo(int target) {
+            if (this.value >= target)
+                return this.value;
+            int lo = Math.max(0, this.k) / BLOCK;
+            int hi = skipEntries(this.degree);
+            // last block in (lo, hi] whose first neighbour is at most target
+            int found = lo;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (readInt(this.skipStart + 8 * (mid - 1)) <= target) {
+                    found = mid;
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            if (found > 0 && found * BLOCK > this.k) {
+                int skip = this.skipStart + 8 * (found - 1);
+                this.k = found * BLOCK;
+                this.value = readInt(skip);
+                this.at = this.rowStart + readInt(skip + 4);
+                if (this.value >= target)
+                    return this.value;
+            }
+            while (next() < target) {
+                // decoding
+            }
+            return this.value;
+        }
+
+        /**
+         * Moves to a position of the row, jumping to its block with the skip table.
+         *
+         * @param position a position at or after the current one.
+         * @return the neighbour there, {@link Integer#MAX_VALUE} if the row is shorter.
+         */
+        public int seek(int position) {
+            if (position >= this.degree) {
+                this.k = this.degree;
+                return this.value = Integer.MAX_VALUE;
+            }
+            int block = position / BLOCK;
+            if (block > 0 && block * BLOCK > this.k) {
+                int skip = this.skipStart + 8 * (block - 1);
+                this.k = block * BLOCK;
+                this.value = readInt(skip);
+                this.at = this.rowStart + readInt(skip + 4);
+            }
+            while (this.k < position)
+                next();
+            return this.value;
+        }
+
+        /**
+         * @return position in the row of {@link #value()}, -1 before the first one and the degree once it's done.
+         */
+        public int position() {
+            return this.k;
+        }
+
+        /**
+         * @return the neighbour the cursor is on.
+         */
+        public int value() {
+            return this.value;
+        }
+
+        /**
+         * @return degree of the row.
+         */
+        public int degree() {
+            return this.degree;
+        }
+
+        private int readVarint() {
+            int result = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[this.at++];
+                result |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return result;
+        }
+    }
+
+    public Cursor cursor(int u) {
+        Cursor cursor = new Cursor();
+        cursor.reset(u);
+        return cursor;
+    }
+
+    /**
+     * Decodes a whole row.
+     *
+     * @param out has room for at least degree(u) values from outFrom on.
+     * @return degree(u).
+     */
+    public int decode(int u, int[] out, int outFrom) {
+        Cursor cursor = cursor(u);
+        for (int i = 0; i < cursor.degree(); i++)
+            out[outFrom + i] = cursor.next();
+        return cursor.degree();
+    }
+
+    public int nodeCount() {
+        return this.nodes.size();
+    }
+
+    /**
+     * @return number of undirected edges.
+     */
+    public long edgeCount() {
+        return this.edgeCount;
+    }
+
+    /**
+     * Decodes the varint at the start of the row.
+     */
+    public int degree(int u) {
+        int at = this.offsets[u];
+        int result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = this.bytes[at++];
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return result;
+    }
+
+    /**
+     * @return true if u and v are adjacent.
+     */
+    public boolean hasEdge(int u, int v) {
+        return cursor(u).advanceTo(v) == v;
+    }
+
+    public N node(int u) {
+        return this.nodes.get(u);
+    }
+
+    public List<N> getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Same as {@link CSRGraph#indexOf(Node)} without a dictionary, the map is built the first time it's needed.
+     *
+     * @return index of n, or -1 if n is not in the graph.
+     */
+    public int indexOf(N n) {
+        Map<N, Integer> idx = this.indices;
+        if (idx == null) {
+            idx = new HashMap<>(this.nodes.size() * 2);
+            for (int i = 0; i < this.nodes.size(); i++)
+                idx.put(this.nodes.get(i), i);
+            this.indices = idx;
+        }
+        Integer i = idx.get(n);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * @return bytes taken by the encoded rows and their offsets, not counting the nodes.
+     */
+    public long sizeInBytes() {
+        return this.bytes.length + 4L * this.offsets.length;
+    }
+}
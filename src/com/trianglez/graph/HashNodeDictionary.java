@@ -0,0 +1,49 @@
+package com.trianglez.graph;
+
+import com.trianglez.node.Node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The default {@link NodeDictionary}, works for any node type by hashing it.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class HashNodeDictionary<N extends Node> implements NodeDictionary<N> {
+    private final List<N> nodes;
+    private final Map<N, Integer> indices;
+
+    public HashNodeDictionary(int expectedNodes) {
+        this.nodes = new ArrayList<>(expectedNodes);
+        this.indices = new HashMap<>(expectedNodes * 2);
+    }
+
+    @Override
+    public int intern(N node) {
+        Integer i = this.indices.get(node);
+        if (i != null)
+            return i;
+        this.indices.put(node, this.nodes.size());
+        this.nodes.add(node);
+        return this.nodes.size() - 1;
+    }
+
+    @Override
+    public int indexOf(N node) {
+        Integer i = this.indices.get(node);
+        return i == null ? -1 : i;
+    }
+
+    @Override
+    public N node(int index) {
+        return this.nodes.get(index);
+    }
+
+    @Override
+    public int size() {
+        return this.nodes.size();
+    }
+}
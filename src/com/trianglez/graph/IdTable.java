@@ -0,0 +1,114 @@
+package com.trianglez.graph;
+
+import java.util.Arrays;
+
+/**
+ * Maps raw ids, like the page ids of an edge list, to dense indices. An int array indexed by id while the ids are dense,
+ * linear probing over parallel int arrays once one comes along that is negative or way past the number of ids so far,
+ * so memory follows the number of ids and not the biggest one. {@link com.trianglez.node.types.FBPageDictionary} keeps
+ * one per category.
+ * <p>
+ * Not thread safe, though lookups can be shared between threads once nothing gets added anymore.
+ */
+public final class IdTable {
+
+    private int[] dense = new int[64];
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IdTable() {
+        Arrays.fill(this.dense, -1);
+    }
+
+    /**
+     * @return the index of id, or -1.
+     */
+    public int get(int id) {
+        if (this.dense != null)
+            return id >= 0 && id < this.dense.length ? this.dense[id] : -1;
+        int mask = this.keys.length - 1;
+        for (int slot = hash(id) & mask; this.values[slot] >= 0; slot = (slot + 1) & mask)
+            if (this.keys[slot] == id)
+                return this.values[slot];
+        return -1;
+    }
+
+    /**
+     * Adds an id that isn't there yet.
+     *
+     * @param index at least 0.
+     */
+    public void put(int id, int index) {
+        if (this.dense != null) {
+            if (id >= 0 && id < this.dense.length) {
+                this.dense[id] = index;
+                this.size++;
+                return;
+            }
+            if (id >= 0 && id <= 4 * this.size + 1024) {
+                int old = this.dense.length;
+                this.dense = Arrays.copyOf(this.dense, Math.max(id + 1, old * 2));
+                Arrays.fill(this.dense, old, this.dense.length, -1);
+                this.dense[id] = index;
+                this.size++;
+                return;
+            }
+            toTable();
+        }
+        if (2 * (this.size + 1) > this.keys.length)
+            rehash(this.keys.length * 2);
+        insert(id, index);
+        this.size++;
+    }
+
+    /**
+     * @return number of ids added.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    private void toTable() {
+        int[] dense = this.dense;
+        this.dense = null;
+        this.keys = new int[tableSize(this.size + 1)];
+        this.values = new int[this.keys.length];
+        Arrays.fill(this.values, -1);
+        for (int id = 0; id < dense.length; id++)
+            if (dense[id] >= 0)
+                insert(id, dense[id]);
+    }
+
+    private void rehash(int capacity) {
+        int[] keys = this.keys;
+        int[] values = this.values;
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        Arrays.fill(this.values, -1);
+        for (int slot = 0; slot < keys.length; slot++)
+            if (values[slot] >= 0)
+                insert(keys[slot], values[slot]);
+    }
+
+    private void insert(int id, int index) {
+        int mask = this.keys.length - 1;
+        int slot = hash(id) & mask;
+        while (this.values[slot] >= 0)
+            slot = (slot + 1) & mask;
+        this.keys[slot] = id;
+        this.values[slot] = index;
+    }
+
+    /**
+     * @return a power of two with room for size ids at half load.
+     */
+    private static int tableSize(int size) {
+        return Math.max(16, Integer.highestOneBit(Math.max(1, 2 * size - 1)) << 1);
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,37 @@
+package com.trianglez.graph;
+
+import com.trianglez.node.Node;
+
+/**
+ * Gives nodes dense int indices in the order they're first seen. {@link CSRGraphBuilder} uses one to turn nodes into
+ * CSR indices and {@link CSRGraph#indexOf(Node)} uses it to go back.
+ *
+ * @param <N> a subclass of Node.
+ */
+public interface NodeDictionary<N extends Node> {
+
+    /**
+     * Adds a node if it hasn't been seen yet.
+     *
+     * @param node the node.
+     * @return the dense index of node.
+     */
+    int intern(N node);
+
+    /**
+     * @param node the node.
+     * @return the dense index of node, or -1 if it was never interned.
+     */
+    int indexOf(N node);
+
+    /**
+     * @param index a dense index.
+     * @return the node with that index.
+     */
+    N node(int index);
+
+    /**
+     * @return number of nodes interned so far.
+     */
+    int size();
+}
@@ -0,0 +1,378 @@
+package com.trianglez.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A graph whose edges live on disk instead of the heap, for graphs too big for a {@link CSRGraph}. Nodes are ranked by
+ * (degree, index) like {@link CSRGraph#degreeOrder()} and every edge is kept once, in the row of its lower ranked end,
+ * so rows are the forward rows {@link com.trianglez.Algorithm#FORWARD} works with. The ranks are cut into contiguous
+ * partitions of at most half the heap budget each, and every partition is a file holding its rows as a small CSR in
+ * rank space. Enumerating only ever needs two partitions in memory at once, see
+ * {@link com.trianglez.ExternalTriangleCounter}.
+ * <p>
+ * Writing takes two passes over the edges: one for the degrees, one that spills every edge into the file of its
+ * partition. Each spill file is then sorted into rows on its own, reading it once to count the rows and once to fill
+ * them, so writing never holds more than one partition's rows either. Only a few ints per node stay on the heap
+ * besides.
+ */
+public class PartitionedGraph {
+
+    /**
+     * Something that can hand out all edges, as dense node indices, as often as asked.
+     */
+    @FunctionalInterface
+    public interface EdgeSource {
+        void edges(EdgeConsumer consumer) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface EdgeConsumer {
+        void edge(int u, int v);
+    }
+
+    /**
+     * The rows of one contiguous range of ranks, loaded from its file.
+     */
+    public static class Partition {
+        private final int firstRank;
+        private final int[] offsets;
+        private final int[] neighbours;
+
+        Partition(int firstRank, int[] offsets, int[] neighbours) {
+            this.firstRank = firstRank;
+            this.offsets = offsets;
+            this.neighbours = neighbours;
+        }
+
+        public int getFirstRank() {
+            return this.firstRank;
+        }
+
+        /**
+         * @return number of ranks in the partition.
+         */
+        public int rows() {
+            return this.offsets.length - 1;
+        }
+
+        /**
+         * @return offsets[r - firstRank] is where the row of rank r starts in {@link #getNeighbours()}.
+         */
+        public int[] getOffsets() {
+            return this.offsets;
+        }
+
+        /**
+         * @return sorted ranks of the higher ranked neighbours, row by row.
+         */
+        public int[] getNeighbours() {
+            return this.neighbours;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File dir;
+    private final int[] order;
+    private final int[] degrees;
+    /**
+     * Partition p holds ranks firstRanks[p] until firstRanks[p + 1].
+     */
+    private final int[] firstRanks;
+    private final long edgeCount;
+
+    private PartitionedGraph(File dir, int[] order, int[] degrees, int[] firstRanks, long edgeCount) {
+        this.dir = dir;
+        this.order = order;
+        this.degrees = degrees;
+        this.firstRanks = firstRanks;
+        this.edgeCount = edgeCount;
+    }
+
+    /**
+     * Copies an in-memory graph to disk, mostly useful for testing.
+     */
+    public static PartitionedGraph write(File dir, CSRGraph<?> g, long budgetBytes) throws IOException {
+        int[] offsets = g.getOffsets();
+        int[] neighbours = g.getNeighbours();
+        return write(dir, consumer -> {
+            for (int u = 0; u < g.nodeCount(); u++)
+                for (int i = offsets[u]; i < offsets[u + 1]; i++)
+                    if (neighbours[i] > u)
+                        consumer.edge(u, neighbours[i]);
+        }, budgetBytes);
+    }
+
+    /**
+     * Self loops are dropped and duplicate edges are merged, like {@link CSRGraphBuilder} does.
+     *
+     * @param dir         where the partition files go, created if needed. Files from an earlier write get replaced.
+     * @param source      gets asked for the edges twice.
+     * @param budgetBytes roughly how much heap the rows of the partitions being worked on may take. A node whose row
+     *                    alone is bigger still gets a partition of its own.
+     * @return the graph.
+     * @throws IOException if the files can't be written or the source fails.
+     */
+    public static PartitionedGraph write(File dir, EdgeSource source, long budgetBytes) throws IOException {
+        Files.createDirectories(dir.toPath());
+
+        // pass 1: degrees
+        int[][] counted = {new int[16]};
+        int[] nodes = {0};
+        source.edges((u, v) -> {
+            if (u == v)
+                return;
+            int max = Math.max(u, v);
+            if (max >= counted[0].length)
+                counted[0] = Arrays.copyOf(counted[0], Math.max(max + 1, counted[0].length * 2));
+            nodes[0] = Math.max(nodes[0], max + 1);
+            counted[0][u]++;
+            counted[0][v]++;
+        });
+        int n = nodes[0];
+        if (n == 0)
+            return new PartitionedGraph(dir, new int[0], new int[0], new int[]{0}, 0);
+        int[] order = degreeOrder(counted[0], n);
+        int[] rank = new int[n];
+        for (int r = 0; r < n; r++)
+            rank[order[r]] = r;
+
+        // a row never holds more than the degree, so that bounds each partition
+        int[] firstRanks = new int[n + 1];
+        int partitions = 0;
+        long partitionBytes = budgetBytes / 2;
+        long bytes = 0;
+        for (int r = 0; r < n; r++) {
+            long rowBytes = 4L * (counted[0][order[r]] + 1);
+            if (r > 0 && bytes + rowBytes > partitionBytes) {
+                firstRanks[++partitions] = r;
+                bytes = 0;
+            }
+            bytes += rowBytes;
+        }
+        firstRanks[++partitions] = n;
+        firstRanks = Arrays.copyOf(firstRanks, partitions + 1);
+        counted[0] = null;
+
+        // pass 2: spill every edge to the partition of its lower ranked end
+        int[] partitionStarts = firstRanks;
+        FileChannel[] spills = new FileChannel[partitions];
+        ByteBuffer[] buffers = new ByteBuffer[partitions];
+        long[] spilled = new long[partitions];
+        IOException[] failed = new IOException[1];
+        try {
+            for (int p = 0; p < partitions; p++) {
+                spills[p] = FileChannel.open(spillFile(dir, p).toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                buffers[p] = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            source.edges((u, v) -> {
+                if (u == v || failed[0] != null)
+                    return;
+                int a = Math.min(rank[u], rank[v]);
+                int b = Math.max(rank[u], rank[v]);
+                int p = partitionOf(partitionStarts, a);
+                try {
+                    if (buffers[p].remaining() < 8)
+                        flush(spills[p], buffers[p]);
+                } catch (IOException e) {
+                    failed[0] = e;
+                    return;
+                }
+                buffers[p].putInt(a).putInt(b);
+                spilled[p]++;
+            });
+            if (failed[0] != null)
+                throw failed[0];
+            for (int p = 0; p < partitions; p++)
+                flush(spills[p], buffers[p]);
+        } finally {
+            for (FileChannel spill : spills)
+                if (spill != null)
+                    spill.close();
+        }
+
+        // pass 3: sort each spill into rows
+        int[] degrees = new int[n];
+        long edgeCount = 0;
+        for (int p = 0; p < partitions; p++) {
+            File spillFile = spillFile(dir, p);
+            int first = firstRanks[p];
+            int rows = firstRanks[p + 1] - first;
+            // the spill is read twice rather than loaded, so only the rows are on the heap
+            int[] offsets = new int[rows + 1];
+            readPairs(spillFile, (a, b) -> offsets[a - first + 1]++);
+            for (int r = 0; r < rows; r++)
+                offsets[r + 1] += offsets[r];
+            int[] fill = Arrays.copyOf(offsets, rows);
+            int[] neighbours = new int[Math.toIntExact(spilled[p])];
+            readPairs(spillFile, (a, b) -> neighbours[fill[a - first]++] = b);
+            Files.delete(spillFile.toPath());
+
+            int write = 0;
+            for (int r = 0; r < rows; r++) {
+                int start = offsets[r];
+                int end = offsets[r + 1];
+                Arrays.sort(neighbours, start, end);
+                offsets[r] = write;
+                for (int i = start; i < end; i++) {
+                    if (i > start && neighbours[i] == neighbours[i - 1])
+                        continue;
+                    neighbours[write++] = neighbours[i];
+                    degrees[order[first + r]]++;
+                    degrees[order[neighbours[i]]]++;
+                }
+            }
+            offsets[rows] = write;
+            edgeCount += write;
+
+            try (FileChannel channel = FileChannel.open(partitionFile(dir, p).toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                putInts(channel, buffer, offsets, offsets.length);
+                putInts(channel, buffer, neighbours, write);
+                flush(channel, buffer);
+            }
+        }
+        return new PartitionedGraph(dir, order, degrees, firstRanks, edgeCount);
+    }
+
+    /**
+     * Same stable counting sort as {@link CSRGraph#degreeOrder()}.
+     */
+    private static int[] degreeOrder(int[] degrees, int n) {
+        int maxDegree = 0;
+        for (int u = 0; u < n; u++)
+            maxDegree = Math.max(maxDegree, degrees[u]);
+        int[] buckets = new int[maxDegree + 2];
+        for (int u = 0; u < n; u++)
+            buckets[degrees[u] + 1]++;
+        for (int d = 0; d <= maxDegree; d++)
+            buckets[d + 1] += buckets[d];
+        int[] order = new int[n];
+        for (int u = 0; u < n; u++)
+            order[buckets[degrees[u]]++] = u;
+        return order;
+    }
+
+    private static int partitionOf(int[] firstRanks, int rank) {
+        int p = Arrays.binarySearch(firstRanks, rank);
+        return p >= 0 ? p : -p - 2;
+    }
+
+    /**
+     * Reads a partition from its file.
+     *
+     * @param p a partition, 0 until {@link #partitions()}.
+     */
+    public Partition partition(int p) throws IOException {
+        int rows = this.firstRanks[p + 1] - this.firstRanks[p];
+        try (FileChannel channel = FileChannel.open(partitionFile(this.dir, p).toPath(), StandardOpenOption.READ)) {
+            int[] offsets = new int[rows + 1];
+            getInts(channel, 0, offsets);
+            int[] neighbours = new int[offsets[rows]];
+            getInts(channel, 4L * offsets.length, neighbours);
+            return new Partition(this.firstRanks[p], offsets, neighbours);
+        }
+    }
+
+    /**
+     * @return the partition that holds the row of rank.
+     */
+    public int partitionOf(int rank) {
+        return partitionOf(this.firstRanks, rank);
+    }
+
+    public int partitions() {
+        return this.firstRanks.length - 1;
+    }
+
+    public int nodeCount() {
+        return this.order.length;
+    }
+
+    public long edgeCount() {
+        return this.edgeCount;
+    }
+
+    public int degree(int u) {
+        return this.degrees[u];
+    }
+
+    /**
+     * @return node index of a rank.
+     */
+    public int node(int rank) {
+        return this.order[rank];
+    }
+
+    /**
+     * Removes the partition files.
+     */
+    public void delete() throws IOException {
+        for (int p = 0; p < partitions(); p++)
+            Files.deleteIfExists(partitionFile(this.dir, p).toPath());
+    }
+
+    private static File spillFile(File dir, int p) {
+        return new File(dir, "spill-" + p + ".bin");
+    }
+
+    private static File partitionFile(File dir, int p) {
+        return new File(dir, "partition-" + p + ".bin");
+    }
+
+    /**
+     * Maps the file a window at a time and bulk copies it, like {@link com.trianglez.readers.FBGraphSnapshot} does.
+     */
+    private static void getInts(FileChannel channel, long position, int[] dest) throws IOException {
+        int perWindow = (1 << 30) / 4;
+        for (int from = 0; from < dest.length; from += perWindow) {
+            int length = Math.min(perWindow, dest.length - from);
+            channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * from, 4L * length)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(dest, from, length);
+        }
+    }
+
+    /**
+     * Streams the (a, b) pairs of a spill file through a small buffer.
+     */
+    private static void readPairs(File file, EdgeConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (channel.read(buffer) >= 0 || buffer.position() > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= 8)
+                    consumer.edge(buffer.getInt(), buffer.getInt());
+                buffer.compact();
+                if (buffer.position() > 0 && channel.position() == channel.size())
+                    throw new IOException("Truncated spill file " + file);
+            }
+        }
+    }
+
+    private static void putInts(FileChannel channel, ByteBuffer buffer, int[] values, int count) throws IOException {
+        for (int from = 0; from < count; ) {
+            if (buffer.remaining() < 4)
+                flush(channel, buffer);
+            int length = Math.min(buffer.remaining() / 4, count - from);
+            buffer.asIntBuffer().put(values, from, length);
+            buffer.position(buffer.position() + 4 * length);
+            from += length;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,237 @@
+package com.trianglez.graph;
+
+import com.trianglez.node.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A copy of a {@link CSRGraph} with its node indices handed out again, so nodes that get looked at together sit close
+ * together in memory, plus the permutation between the old and the new indices. Readers hand out indices in the order
+ * nodes first show up in the edge lists, which scatters the rows a triangle engine reads one after the other all over
+ * the neighbours array.
+ * <p>
+ * The new graph has the same nodes, so anything computed on it can be read per node with {@link CSRGraph#node(int)}
+ * straight away. Arrays indexed by node can be put back in the old order with {@link #toOriginal(long[])}, e.g. to
+ * line them up with indices from a {@link com.trianglez.node.types.FBPageDictionary}.
+ *
+ * @param <N> a subclass of Node.
+ */
+public class Reordering<N extends Node> {
+
+    public enum Strategy {
+        /**
+         * Highest degree first, so the hubs whose rows get read most are next to each other.
+         */
+        DEGREE,
+        /**
+         * {@link CSRGraph#degeneracyOrder()}, sparse outskirts first and the dense core last.
+         */
+        DEGENERACY,
+        /**
+         * Reverse Cuthill-McKee: breadth first from a node of least degree, neighbours by increasing degree, then the
+         * whole order reversed. Neighbours end up with indices close to each other, so rows and the rows they point
+         * to are near each other as well.
+         */
+        RCM
+    }
+
+    private final CSRGraph<N> original;
+    private final CSRGraph<N> graph;
+    /**
+     * New index to old index.
+     */
+    private final int[] order;
+    /**
+     * Old index to new index.
+     */
+    private final int[] rank;
+
+    /**
+     * @param order new index to old index, a permutation of the node indices of g.
+     */
+    public Reordering(final CSRGraph<N> g, int[] order) {
+        int n = g.nodeCount();
+        if (order.length != n)
+            throw new IllegalArgumentException("Expected " + n + " indices, got " + order.length);
+        this.original = g;
+        this.order = order;
+        this.rank = new int[n];
+        Arrays.fill(this.rank, -1);
+        for (int r = 0; r < n; r++) {
+            if (order[r] < 0 || order[r] >= n || this.rank[order[r]] != -1)
+                throw new IllegalArgumentException("Not a permutation, " + order[r] + " at " + r);
+            this.rank[order[r]] = r;
+        }
+
+        int[] offsets = g.getOffsets();
+        int[] neighbours = g.getNeighbours();
+        int[] newOffsets = new int[n + 1];
+        int[] newNeighbours = new int[neighbours.length];
+        List<N> nodes = new ArrayList<>(n);
+        for (int r = 0; r < n; r++) {
+            int u = order[r];
+            nodes.add(g.node(u));
+            int write = newOffsets[r];
+            for (int p = offsets[u]; p < offsets[u + 1]; p++)
+                newNeighbours[write++] = this.rank[neighbours[p]];
+            Arrays.sort(newNeighbours, newOffsets[r], write);
+            newOffsets[r + 1] = write;
+        }
+        this.graph = new CSRGraph<>(newOffsets, newNeighbours, nodes, (int[]) null);
+    }
+
+    public static <N extends Node> Reordering<N> of(CSRGraph<N> g, Strategy strategy) {
+        switch (strategy) {
+            case DEGREE:
+                return new Reordering<>(g, byDegree(g));
+            case DEGENERACY:
+                return new Reordering<>(g, g.degeneracyOrder());
+            case RCM:
+                return new Reordering<>(g, reverseCuthillMcKee(g));
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + strategy);
+        }
+    }
+
+    /**
+     * {@link CSRGraph#degreeOrder()} backwards.
+     */
+    private static int[] byDegree(CSRGraph<?> g) {
+        int[] ascending = g.degreeOrder();
+        int n = ascending.length;
+        int[] order = new int[n];
+        for (int r = 0; r < n; r++)
+            order[r] = ascending[n - 1 - r];
+        return order;
+    }
+
+    /**
+     * Starts a new breadth first search from the unvisited node of least degree for every component. Each node's
+     * unvisited neighbours are queued by increasing degree, see {@link #sortByDegree}.
+     */
+    private static int[] reverseCuthillMcKee(CSRGraph<?> g) {
+        int n = g.nodeCount();
+        int[] offsets = g.getOffsets();
+        int[] neighbours = g.getNeighbours();
+        int[] byDegree = g.degreeOrder();
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        int head = 0;
+        int tail = 0;
+        int[] scratch = new int[0];
+        long[] keys = new long[0];
+        for (int start : byDegree) {
+            if (visited[start])
+                continue;
+            visited[start] = true;
+            order[tail++] = start;
+            while (head < tail) {
+                int u = order[head++];
+                int from = tail;
+                for (int p = offsets[u]; p < offsets[u + 1]; p++) {
+                    int v = neighbours[p];
+                    if (!visited[v]) {
+                        visited[v] = true;
+                        order[tail++] = v;
+                    }
+                }
+                if (tail - from > 1) {
+                    if (scratch.length < tail - from) {
+                        scratch = new int[tail - from];
+                        keys = new long[tail - from];
+                    }
+                    sortByDegree(g, order, from, tail, scratch, keys);
+                }
+            }
+        }
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        return order;
+    }
+
+    /**
+     * Stable insertion sort for short runs. Longer ones sort (degree, position) pairs packed into longs, then move the
+     * nodes over from a copy.
+     *
+     * @param scratch room for to - from nodes.
+     * @param keys    room for to - from keys.
+     */
+    private static void sortByDegree(CSRGraph<?> g, int[] a, int from, int to, int[] scratch, long[] keys) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int v = a[i];
+                int j = i - 1;
+                while (j >= from && g.degree(a[j]) > g.degree(v)) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = v;
+            }
+            return;
+        }
+        for (int i = from; i < to; i++)
+            keys[i - from] = ((long) g.degree(a[i]) << 32) | (i - from);
+        Arrays.sort(keys, 0, to - from);
+        System.arraycopy(a, from, scratch, 0, to - from);
+        for (int i = 0; i < to - from; i++)
+            a[from + i] = scratch[(int) keys[i]];
+    }
+
+    /**
+     * @return the graph the reordering was made from.
+     */
+    public CSRGraph<N> getOriginal() {
+        return this.original;
+    }
+
+    /**
+     * @return the same graph with the new indices.
+     */
+    public CSRGraph<N> getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * @return new index to old index. Don't modify it.
+     */
+    public int[] getOrder() {
+        return this.order;
+    }
+
+    /**
+     * @return old index of new index u.
+     */
+    public int toOriginal(int u) {
+        return this.order[u];
+    }
+
+    /**
+     * @return new index of old index u.
+     */
+    public int fromOriginal(int u) {
+        return this.rank[u];
+    }
+
+    /**
+     * @param values one value per new index, e.g. local triangle counts of {@link #getGraph()}.
+     * @return the same values indexed by the old indices.
+     */
+    public long[] toOriginal(long[] values) {
+        long[] original = new long[values.length];
+        for (int r = 0; r < values.length; r++)
+            original[this.order[r]] = values[r];
+        return original;
+    }
+
+    public double[] toOriginal(double[] values) {
+        double[] original = new double[values.length];
+        for (int r = 0; r < values.length; r++)
+            original[this.order[r]] = values[r];
+        return original;
+    }
+}
@@ -0,0 +1,127 @@
+package com.trianglez.node.types;
+
+import com.trianglez.graph.IdTable;
+import com.trianglez.graph.NodeDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns {@link FBPageNode}s: each (category, id) pair maps to one dense index and one shared node instance, and
+ * every node of a category shares the same category String. Page ids in the SNAP data are dense from 0 within a
+ * category, so the lookup is a plain int array per category and nothing gets hashed apart from the category name. A
+ * category whose ids turn out to be sparse, or negative, switches over to an open addressing table of ints, so memory
+ * follows the number of pages and not the biggest id.
+ * The category of each index is also kept as a short code, for code that works on indices and doesn't want to touch
+ * the nodes.
+ * <p>
+ * Not thread safe, though the lookups can be shared between threads once nothing gets interned anymore.
+ */
+public class FBPageDictionary implements NodeDictionary<FBPageNode> {
+
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final List<String> categories = new ArrayList<>();
+    /**
+     * Per category code, page id to dense index or -1.
+     */
+    private final List<IdTable> indices = new ArrayList<>();
+    private final List<FBPageNode> nodes = new ArrayList<>();
+    /**
+     * Per dense index, its category code.
+     */
+    private short[] codes = new short[64];
+
+    /**
+     * @param category a category name.
+     * @return a small code for the category, assigned in order of first appearance.
+     */
+    public int category(String category) {
+        Integer code = this.categoryCodes.get(category);
+        if (code != null)
+            return code;
+        if (this.categories.size() > Short.MAX_VALUE)
+            throw new IllegalStateException("Too many categories.");
+        this.categoryCodes.put(category, this.categories.size());
+        this.categories.add(category);
+        this.indices.add(new IdTable());
+        return this.categories.size() - 1;
+    }
+
+    /**
+     * @param code a code from {@link #category(String)}.
+     * @return the shared category String.
+     */
+    public String categoryName(int code) {
+        return this.categories.get(code);
+    }
+
+    public int categoryCount() {
+        return this.categories.size();
+    }
+
+    /**
+     * Looks up a page, creating its node the first time it's seen.
+     *
+     * @param category a code from {@link #category(String)}.
+     * @param id       the page id.
+     * @return the dense index of the page.
+     */
+    public int intern(int category, int id) {
+        IdTable ids = this.indices.get(category);
+        int index = ids.get(id);
+        if (index < 0) {
+            index = this.nodes.size();
+            ids.put(id, index);
+            if (index == this.codes.length)
+                this.codes = Arrays.copyOf(this.codes, this.codes.length * 2);
+            this.codes[index] = (short) category;
+            this.nodes.add(new FBPageNode(id, this.categories.get(category)));
+        }
+        return index;
+    }
+
+    /**
+     * Like {@link #intern(int, int)} but never adds anything.
+     *
+     * @return the dense index of the page, or -1.
+     */
+    public int indexOf(int category, int id) {
+        if (category < 0 || category >= this.indices.size())
+            return -1;
+        return this.indices.get(category).get(id);
+    }
+
+    /**
+     * @param index a dense index.
+     * @return the category code of the page at index.
+     */
+    public int categoryOf(int index) {
+        if (index >= this.nodes.size())
+            throw new IndexOutOfBoundsException("No node with index " + index);
+        return this.codes[index];
+    }
+
+    @Override
+    public int intern(FBPageNode node) {
+        return intern(category(node.getCategory()), node.getId());
+    }
+
+    @Override
+    public int indexOf(FBPageNode node) {
+        Integer code = this.categoryCodes.get(node.getCategory());
+        return code == null ? -1 : indexOf(code, node.getId());
+    }
+
+    @Override
+    public FBPageNode node(int index) {
+        return this.nodes.get(index);
+    }
+
+    @Override
+    public int size() {
+        return this.nodes.size();
+    }
+}
@@ -13,12 +13,17 @@ import javax.annotation.ParametersAreNonnullByDefault;
  * https://snap.stanford.edu/data/gemsec_facebook_dataset.html for more detail.
  */
 public class FBPageNode extends Node {
-    private int id;
-    private String category;
+    private final int id;
+    private final String category;
+    /**
+     * Nodes get hashed on every graph operation, so the murmur3 hash is only computed once.
+     */
+    private final int hash;
 
     public FBPageNode(final int id, final String category) {
         this.id = id;
         this.category = category;
+        this.hash = Hashing.murmur3_32().hashObject(this, this).asInt();
     }
 
     public int getId() {
@@ -51,17 +56,17 @@ public class FBPageNode extends Node {
         if (!(obj instanceof FBPageNode))
             return false;
         FBPageNode p = (FBPageNode) obj;
-        return p.getId() == this.getId() && p.getCategory().equals(this.getCategory());
+        return p.hash == this.hash && p.getId() == this.getId() && p.getCategory().equals(this.getCategory());
     }
 
     /**
-     * Overridden to use {@link Hashing::murmur3_32} with {@link FBPageNode ::funnel}.
+     * Overridden to use {@link Hashing::murmur3_32} with {@link FBPageNode ::funnel}. Computed in the constructor.
      *
      * @return the hash code
      */
     @Override
     public int hashCode() {
-        return Hashing.murmur3_32().hashObject(this, this).asInt();
+        return this.hash;
     }
 
     /**
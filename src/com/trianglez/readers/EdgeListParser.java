@@ -0,0 +1,146 @@
+package com.trianglez.readers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parses "id,id" edge list CSVs like the ones from https://snap.stanford.edu/data/gemsec_facebook_dataset.html straight
+ * from bytes, no Strings or boxed ints get created. The file is read through a {@link FileChannel} into a direct
+ * buffer a chunk at a time, so it works for files of any size.
+ * <p>
+ * The first line is a header and gets skipped. Columns after the second are ignored, spaces and carriage returns are
+ * tolerated around ids but not inside them, and lines with anything else in them (or less than two ids) are skipped
+ * like bad input.
+ */
+public class EdgeListParser {
+
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Gets the raw ids of each edge in file order.
+     */
+    @FunctionalInterface
+    public interface EdgeSink {
+        void edge(int u, int v);
+    }
+
+    private final EdgeSink sink;
+    private boolean skipLine = true;
+    private boolean second;
+    private boolean digits;
+    /**
+     * Whitespace came after the digits, so the id is over.
+     */
+    private boolean ended;
+    private long value;
+    private int first;
+    /**
+     * Stop at the first newline at or after this file position.
+     */
+    private final long lastNewline;
+    private boolean done;
+
+    private EdgeListParser(EdgeSink sink, long lastNewline) {
+        this.sink = sink;
+        this.lastNewline = lastNewline;
+    }
+
+    /**
+     * @param file an edge list CSV with a header line.
+     * @param sink gets every edge.
+     * @throws IOException if the file can't be read.
+     */
+    public static void parse(File file, EdgeSink sink) throws IOException {
+        parse(file, 0, Long.MAX_VALUE, sink);
+    }
+
+    /**
+     * Parses the lines that start in bytes [from, to) of a file, so a big file can be split into chunks at arbitrary
+     * positions and parsed by several threads. Every line belongs to exactly one chunk: a chunk skips the partial line
+     * it starts in and finishes the one it ends in. The header is part of the chunk starting at 0.
+     *
+     * @param file an edge list CSV with a header line.
+     * @param from first byte, inclusive.
+     * @param to   last byte, exclusive.
+     * @param sink gets every edge of the chunk.
+     * @throws IOException if the file can't be read.
+     */
+    public static void parse(File file, long from, long to, EdgeSink sink) throws IOException {
+        if (from >= to)
+            return;
+        EdgeListParser parser = new EdgeListParser(sink, to - 1);
+        // small chunks only need to read a little past their end
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(CHUNK_SIZE, Math.max(4096, to - from + 1)));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // starting one byte early and skipping up to the first newline drops the line the previous chunk finishes
+            long position = Math.max(0, from - 1);
+            channel.position(position);
+            while (!parser.done && channel.read(buffer) != -1) {
+                buffer.flip();
+                parser.consume(buffer, position);
+                position += buffer.limit();
+                buffer.clear();
+            }
+        }
+        if (!parser.done)
+            parser.endLine();
+    }
+
+    private void consume(ByteBuffer buffer, long position) {
+        int limit = buffer.limit();
+        for (int i = buffer.position(); i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                endLine();
+                if (position + i >= this.lastNewline) {
+                    this.done = true;
+                    return;
+                }
+            } else if (!this.skipLine) {
+                consume(b);
+            }
+        }
+    }
+
+    private void consume(byte b) {
+        if (b >= '0' && b <= '9') {
+            if (this.ended)
+                this.skipLine = true;
+            this.value = this.value * 10 + (b - '0');
+            this.digits = true;
+            if (this.value > Integer.MAX_VALUE)
+                this.skipLine = true;
+        } else if (b == ',') {
+            if (!this.digits) {
+                this.skipLine = true;
+            } else if (!this.second) {
+                this.first = (int) this.value;
+                this.second = true;
+                this.value = 0;
+                this.digits = false;
+                this.ended = false;
+            } else {
+                // anything past the second column is ignored
+                this.sink.edge(this.first, (int) this.value);
+                this.skipLine = true;
+            }
+        } else if (b == ' ' || b == '\r' || b == '\t') {
+            this.ended = this.digits;
+        } else {
+            this.skipLine = true;
+        }
+    }
+
+    private void endLine() {
+        if (!this.skipLine && this.second && this.digits)
+            this.sink.edge(this.first, (int) this.value);
+        this.skipLine = false;
+        this.second = false;
+        this.digits = false;
+        this.ended = false;
+        this.value = 0;
+    }
+}
@@ -3,51 +3,296 @@ package com.trianglez.readers;
 import com.google.common.graph.Graph;
 import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.MutableGraph;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.CSRGraphBuilder;
+import com.trianglez.graph.CompressedGraph;
+import com.trianglez.graph.PartitionedGraph;
+import com.trianglez.node.types.FBPageDictionary;
 import com.trianglez.node.types.FBPageNode;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class FBGraphReader {
+    /**
+     * Files are split into chunks of this many bytes when reading several at once.
+     */
+    static final long CHUNK_BYTES = 4 << 20;
+
+    private FBPageDictionary dictionary;
+    private CSRGraphBuilder<FBPageNode> builder;
+    private CSRGraph<FBPageNode> csrGraph;
     private MutableGraph<FBPageNode> graph;
 
     /**
-     * Initializes a {@link MutableGraph} to put edges into.
+     * Initializes a {@link CSRGraphBuilder} to put edges into. The Guava {@link MutableGraph} is only built if someone
+     * asks for it with {@link #getGraph()}.
      */
     public FBGraphReader() {
-        this.graph = GraphBuilder.undirected().allowsSelfLoops(false).build();
+        this.dictionary = new FBPageDictionary();
+        this.builder = new CSRGraphBuilder<>(this.dictionary);
     }
 
     /**
      * Read a file in the format found from data set at https://snap.stanford.edu/data/gemsec_facebook_dataset.html
+     * <p>
+     * Pages are interned through a {@link FBPageDictionary}, so only one {@link FBPageNode} gets created per page
+     * instead of two per edge, and nothing gets hashed per edge.
      *
      * @param graphFile A file with the above data format.
      * @throws IOException if the file doesn't exist or something.
      */
     public void read(File graphFile) throws IOException {
-        String category = graphFile.getName().split("_")[0];
-        BufferedReader f = new BufferedReader(new FileReader(graphFile));
-        f.lines().skip(1).forEach(line -> {
-            String[] ids = line.split(",");
-            if (ids.length < 2)
-                return; // skip bad input
-
-            int node1ID = Integer.parseInt(ids[0]);
-            int node2ID = Integer.parseInt(ids[1]);
-
-            FBPageNode node1 = new FBPageNode(node1ID, category);
-            FBPageNode node2 = new FBPageNode(node2ID, category);
-
-            // gets category of the FB page uniqueTriangles file name
-            if (!node1.equals(node2))
-                this.graph.putEdge(node1, node2);
+        // gets category of the FB page from the file name
+        int category = this.dictionary.category(graphFile.getName().split("_")[0]);
+        EdgeListParser.parse(graphFile, (node1ID, node2ID) -> {
+            if (node1ID != node2ID)
+                this.builder.putEdge(this.dictionary.intern(category, node1ID),
+                        this.dictionary.intern(category, node2ID));
         });
-        f.close();
+        this.csrGraph = null;
+        this.graph = null;
+    }
+
+    /**
+     * Reads every "*_edges.csv" file of a directory like testres at once, on the common pool.
+     *
+     * @param dir a directory of files in the format {@link #read(File)} takes.
+     * @throws IOException if dir isn't a directory or a file can't be read.
+     */
+    public void readDirectory(File dir) throws IOException {
+        File[] files = dir.listFiles((d, name) -> name.endsWith("_edges.csv"));
+        if (files == null)
+            throw new IOException(dir + " is not a directory.");
+        Arrays.sort(files);
+        readAll(Arrays.asList(files), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads several files at once. Every file, or every chunk of {@link #CHUNK_BYTES} of a bigger one, gets parsed
+     * into an int buffer of its own by its own task, so parsing scales with the pool. Then pages are interned category
+     * by category in id order, every buffer gets translated to dense indices by its own task again, and the buffers are
+     * appended to the builder in one copy each. Only the interning runs on one thread, and it only walks the ids.
+     * <p>
+     * Gives the same graph as calling {@link #read(File)} for every file, but node indices are in (category, id) order
+     * instead of in order of first appearance.
+     *
+     * @param graphFiles files in the format {@link #read(File)} takes.
+     * @param pool       where to parse, or null to parse on the calling thread.
+     * @throws IOException if a file can't be read.
+     */
+    public void readAll(Collection<File> graphFiles, ForkJoinPool pool) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        for (File graphFile : graphFiles) {
+            int category = this.dictionary.category(graphFile.getName().split("_")[0]);
+            long size = Files.size(graphFile.toPath());
+            for (long from = 0; from < size; from += CHUNK_BYTES)
+                chunks.add(new Chunk(graphFile, category, from, Math.min(size, from + CHUNK_BYTES)));
+        }
+        run(pool, chunks, Chunk::parse);
+
+        // interned in (category, id) order, from the sorted distinct ids of every chunk
+        run(pool, chunks, Chunk::distinct);
+        for (int category = 0; category < this.dictionary.categoryCount(); category++) {
+            int total = 0;
+            for (Chunk chunk : chunks)
+                if (chunk.category == category)
+                    total += chunk.ids.length;
+            int[] ids = new int[total];
+            int at = 0;
+            for (Chunk chunk : chunks) {
+                if (chunk.category == category) {
+                    System.arraycopy(chunk.ids, 0, ids, at, chunk.ids.length);
+                    at += chunk.ids.length;
+                    chunk.ids = null;
+                }
+            }
+            Arrays.sort(ids);
+            for (int i = 0; i < ids.length; i++)
+                if (i == 0 || ids[i] != ids[i - 1])
+                    this.dictionary.intern(category, ids[i]);
+        }
+
+        run(pool, chunks, chunk -> chunk.translate(this.dictionary));
+        for (Chunk chunk : chunks)
+            this.builder.putEdges(chunk.edges, chunk.count);
+        this.csrGraph = null;
+        this.graph = null;
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(Chunk chunk) throws IOException;
+    }
+
+    private static void run(ForkJoinPool pool, List<Chunk> chunks, ChunkTask task) throws IOException {
+        if (pool == null) {
+            for (Chunk chunk : chunks)
+                task.run(chunk);
+            return;
+        }
+        List<Callable<Void>> calls = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks) {
+            calls.add(() -> {
+                task.run(chunk);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> done : pool.invokeAll(calls))
+                done.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading.");
+        }
+    }
+
+    /**
+     * The edges of a byte range of one file, as raw page ids until translated.
+     */
+    private static class Chunk {
+        private final File file;
+        private final int category;
+        private final long from;
+        private final long to;
+        private int[] edges = new int[1024];
+        private int count;
+        /**
+         * Sorted distinct page ids of the chunk, until they're interned.
+         */
+        private int[] ids;
+
+        Chunk(File file, int category, long from, long to) {
+            this.file = file;
+            this.category = category;
+            this.from = from;
+            this.to = to;
+        }
+
+        void parse() throws IOException {
+            EdgeListParser.parse(this.file, this.from, this.to, (node1ID, node2ID) -> {
+                if (node1ID == node2ID)
+                    return;
+                if (2 * this.count + 2 > this.edges.length)
+                    this.edges = Arrays.copyOf(this.edges, this.edges.length * 2);
+                this.edges[2 * this.count] = node1ID;
+                this.edges[2 * this.count + 1] = node2ID;
+                this.count++;
+            });
+        }
+
+        void distinct() {
+            int[] ids = Arrays.copyOf(this.edges, 2 * this.count);
+            Arrays.sort(ids);
+            int size = 0;
+            for (int i = 0; i < ids.length; i++)
+                if (size == 0 || ids[i] != ids[size - 1])
+                    ids[size++] = ids[i];
+            this.ids = Arrays.copyOf(ids, size);
+        }
+
+        void translate(FBPageDictionary dictionary) {
+            for (int i = 0; i < 2 * this.count; i++)
+                this.edges[i] = dictionary.indexOf(this.category, this.edges[i]);
+        }
+    }
+
+    /**
+     * Reads files straight into a {@link PartitionedGraph} on disk instead of into the heap, for inputs too big for
+     * {@link #getCSRGraph()}. Every file gets parsed twice.
+     *
+     * @param dir         where the partition files go.
+     * @param budgetBytes see {@link PartitionedGraph#write(File, PartitionedGraph.EdgeSource, long)}.
+     * @param dictionary  gets every page, node indices of the graph come from it.
+     * @param graphFiles  files in the format {@link #read(File)} takes.
+     * @return the graph.
+     * @throws IOException if a file can't be read or written.
+     */
+    public static PartitionedGraph readPartitioned(File dir, long budgetBytes, FBPageDictionary dictionary,
+                                                   File... graphFiles) throws IOException {
+        return PartitionedGraph.write(dir, edges(dictionary, graphFiles), budgetBytes);
+    }
+
+    /**
+     * Reads files straight into a {@link CompressedGraph}, for inputs whose int rows don't fit on the heap but whose
+     * compressed rows do. Every file gets parsed once, plus once per range of nodes.
+     *
+     * @param budgetBytes see {@link CompressedGraph#of(PartitionedGraph.EdgeSource, java.util.function.IntFunction,
+     *                    long)}.
+     * @param dictionary  gets every page, node indices of the graph come from it.
+     * @param graphFiles  files in the format {@link #read(File)} takes.
+     * @return the graph.
+     * @throws IOException if a file can't be read.
+     */
+    public static CompressedGraph<FBPageNode> readCompressed(long budgetBytes, FBPageDictionary dictionary,
+                                                             File... graphFiles) throws IOException {
+        return CompressedGraph.of(edges(dictionary, graphFiles), dictionary::node, budgetBytes);
+    }
+
+    /**
+     * Parses the files again every time it's asked, interning is the same every time.
+     */
+    private static PartitionedGraph.EdgeSource edges(FBPageDictionary dictionary, File... graphFiles) {
+        return consumer -> {
+            for (File graphFile : graphFiles) {
+                int category = dictionary.category(graphFile.getName().split("_")[0]);
+                EdgeListParser.parse(graphFile, (node1ID, node2ID) ->
+                        consumer.edge(dictionary.intern(category, node1ID), dictionary.intern(category, node2ID)));
+            }
+        };
     }
 
+    /**
+     * @return the dictionary holding every page read so far.
+     */
+    public FBPageDictionary getDictionary() {
+        return this.dictionary;
+    }
+
+    /**
+     * @return everything read so far as a {@link CSRGraph}, which is what
+     * {@link com.trianglez.TriangleFinder} runs on anyways.
+     */
+    public CSRGraph<FBPageNode> getCSRGraph() {
+        if (this.csrGraph == null)
+            this.csrGraph = this.builder.build();
+        return this.csrGraph;
+    }
+
+    /**
+     * Copies everything read so far into a Guava graph. Prefer {@link #getCSRGraph()}, it's much smaller.
+     *
+     * @return a {@link Graph} of the pages read so far.
+     */
     public Graph<FBPageNode> getGraph() {
+        if (this.graph == null) {
+            CSRGraph<FBPageNode> csr = getCSRGraph();
+            MutableGraph<FBPageNode> g = GraphBuilder.undirected().allowsSelfLoops(false)
+                    .expectedNodeCount(csr.nodeCount()).build();
+            int[] offsets = csr.getOffsets();
+            int[] neighbours = csr.getNeighbours();
+            for (int u = 0; u < csr.nodeCount(); u++) {
+                g.addNode(csr.node(u));
+                for (int i = offsets[u]; i < offsets[u + 1]; i++)
+                    if (u < neighbours[i])
+                        g.putEdge(csr.node(u), csr.node(neighbours[i]));
+            }
+            this.graph = g;
+        }
         return this.graph;
     }
 }
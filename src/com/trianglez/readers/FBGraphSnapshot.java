@@ -0,0 +1,280 @@
+package com.trianglez.readers;
+
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.FBPageNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A binary on-disk copy of a preprocessed {@link CSRGraph} of {@link FBPageNode}s, so later runs don't have to parse
+ * the CSVs and build the graph again. Everything is little endian and every section starts 8 byte aligned:
+ * <pre>
+ *     header        magic "BTRI", version, flags, node count n, neighbours length
+ *     categories    count, then (byte length, UTF-8 bytes) per category
+ *     ids           int[n] page ids
+ *     category      short[n] index into the category table
+ *     offsets       int[n + 1]
+ *     neighbours    int[neighbours length]
+ *     degree order  int[n], only if flags has DEGREE_ORDER
+ *     counts        long[n] local triangle counts, only if flags has TRIANGLE_COUNTS
+ * </pre>
+ * Reading memory-maps the file and bulk copies each section into arrays, which is about as fast as the disk allows.
+ * The graph ends up on the heap like a parsed one, since the engines work on plain int arrays, so a reload saves the
+ * parsing and the building but not the memory. Section lengths are checked against the file size before anything
+ * gets allocated, and indices against the node count, so a truncated or corrupt file gives an IOException.
+ */
+public class FBGraphSnapshot {
+
+    private static final int MAGIC = 0x42545249;
+    private static final int VERSION = 1;
+    private static final int DEGREE_ORDER = 1;
+    private static final int TRIANGLE_COUNTS = 2;
+    /**
+     * Sections are mapped at most this many bytes at a time since a mapping can't exceed 2GB.
+     */
+    private static final int WINDOW = 1 << 30;
+
+    private final CSRGraph<FBPageNode> graph;
+    private final long[] localCounts;
+
+    private FBGraphSnapshot(CSRGraph<FBPageNode> graph, long[] localCounts) {
+        this.graph = graph;
+        this.localCounts = localCounts;
+    }
+
+    public CSRGraph<FBPageNode> getGraph() {
+        return this.graph;
+    }
+
+    public boolean hasTriangleCounts() {
+        return this.localCounts != null;
+    }
+
+    /**
+     * @return a counter over the stored triangle counts, so no enumeration is needed for clustering coefficients.
+     * @throws IllegalStateException if the snapshot was written without counts.
+     */
+    public TriangleCounter<FBPageNode> getTriangleCounter() {
+        if (this.localCounts == null)
+            throw new IllegalStateException("This snapshot was written without triangle counts.");
+        return new TriangleCounter<>(this.graph, this.localCounts);
+    }
+
+    /**
+     * Writes a graph with its degree order.
+     */
+    public static void write(File file, CSRGraph<FBPageNode> g) throws IOException {
+        write(file, g, null);
+    }
+
+    /**
+     * Writes a graph with its degree order and the local triangle counts of a counter that ran on it.
+     */
+    public static void write(File file, TriangleCounter<FBPageNode> counter) throws IOException {
+        write(file, counter.getGraph(), counter.getLocalCounts());
+    }
+
+    private static void write(File file, CSRGraph<FBPageNode> g, long[] localCounts) throws IOException {
+        int n = g.nodeCount();
+        Map<String, Short> categoryCodes = new HashMap<>();
+        List<String> categories = new ArrayList<>();
+        int[] ids = new int[n];
+        short[] codes = new short[n];
+        for (int u = 0; u < n; u++) {
+            FBPageNode node = g.node(u);
+            ids[u] = node.getId();
+            Short code = categoryCodes.get(node.getCategory());
+            if (code == null) {
+                if (categories.size() > Short.MAX_VALUE)
+                    throw new IOException("Too many categories for a snapshot.");
+                code = (short) categories.size();
+                categoryCodes.put(node.getCategory(), code);
+                categories.add(node.getCategory());
+            }
+            codes[u] = code;
+        }
+
+        int flags = DEGREE_ORDER | (localCounts != null ? TRIANGLE_COUNTS : 0);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(n).putInt(g.getNeighbours().length);
+            buffer.putInt(categories.size());
+            for (String category : categories) {
+                byte[] bytes = category.getBytes(StandardCharsets.UTF_8);
+                ensure(channel, buffer, 4 + bytes.length);
+                buffer.putInt(bytes.length).put(bytes);
+            }
+            align(channel, buffer);
+            putInts(channel, buffer, ids);
+            for (short code : codes) {
+                ensure(channel, buffer, 2);
+                buffer.putShort(code);
+            }
+            align(channel, buffer);
+            putInts(channel, buffer, g.getOffsets());
+            putInts(channel, buffer, g.getNeighbours());
+            putInts(channel, buffer, g.degreeOrder());
+            if (localCounts != null) {
+                for (long count : localCounts) {
+                    ensure(channel, buffer, 8);
+                    buffer.putLong(count);
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * @param file a file written by one of the write methods.
+     * @return the snapshot.
+     * @throws IOException if the file can't be read or isn't a snapshot.
+     */
+    public static FBGraphSnapshot read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(channel.size(), WINDOW));
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < 24 || header.getInt() != MAGIC)
+                throw new IOException(file + " is not a graph snapshot.");
+            if (header.getInt() != VERSION)
+                throw new IOException(file + " has an unsupported snapshot version.");
+            int flags = header.getInt();
+            int n = header.getInt();
+            int neighboursLength = header.getInt();
+            int categoryCount = header.getInt();
+            if (n < 0 || neighboursLength < 0 || categoryCount < 0 || categoryCount > Short.MAX_VALUE + 1)
+                throw new IOException(file + " has a corrupt header.");
+            String[] categories = new String[categoryCount];
+            for (int i = 0; i < categoryCount; i++) {
+                int length = header.remaining() >= 4 ? header.getInt() : -1;
+                if (length < 0 || length > header.remaining())
+                    throw new IOException(file + " has a truncated or corrupt category table.");
+                byte[] bytes = new byte[length];
+                header.get(bytes);
+                categories[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            long position = aligned(header.position());
+
+            long expected = aligned(position + 4L * n);
+            expected = aligned(expected + 2L * n);
+            expected = aligned(expected + 4L * (n + 1));
+            expected = aligned(expected + 4L * neighboursLength);
+            if ((flags & DEGREE_ORDER) != 0)
+                expected = aligned(expected + 4L * n);
+            if ((flags & TRIANGLE_COUNTS) != 0)
+                expected += 8L * n;
+            if (channel.size() < expected)
+                throw new IOException(file + " is truncated, expected " + expected + " bytes but it has "
+                        + channel.size() + ".");
+
+            int[] ids = new int[n];
+            position = getInts(channel, position, ids);
+            ByteBuffer codeBuffer = channel.map(FileChannel.MapMode.READ_ONLY, position, 2L * n)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            List<FBPageNode> nodes = new ArrayList<>(n);
+            for (int u = 0; u < n; u++) {
+                int code = codeBuffer.getShort();
+                if (code < 0 || code >= categoryCount)
+                    throw new IOException(file + " has an unknown category " + code + " at node " + u + ".");
+                nodes.add(new FBPageNode(ids[u], categories[code]));
+            }
+            position = aligned(position + 2L * n);
+
+            int[] offsets = new int[n + 1];
+            position = getInts(channel, position, offsets);
+            int[] neighbours = new int[neighboursLength];
+            position = getInts(channel, position, neighbours);
+            if (offsets[0] != 0 || offsets[n] != neighboursLength)
+                throw new IOException(file + " has corrupt offsets.");
+            for (int u = 0; u < n; u++)
+                if (offsets[u] > offsets[u + 1])
+                    throw new IOException(file + " has corrupt offsets at node " + u + ".");
+            for (int v : neighbours)
+                if (v < 0 || v >= n)
+                    throw new IOException(file + " has a neighbour " + v + " out of range.");
+            int[] degreeOrder = null;
+            if ((flags & DEGREE_ORDER) != 0) {
+                degreeOrder = new int[n];
+                position = getInts(channel, position, degreeOrder);
+                for (int v : degreeOrder)
+                    if (v < 0 || v >= n)
+                        throw new IOException(file + " has a degree order entry " + v + " out of range.");
+            }
+            long[] localCounts = null;
+            if ((flags & TRIANGLE_COUNTS) != 0) {
+                localCounts = new long[n];
+                getLongs(channel, position, localCounts);
+            }
+            return new FBGraphSnapshot(new CSRGraph<>(offsets, neighbours, nodes, degreeOrder), localCounts);
+        }
+    }
+
+    private static long aligned(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static long getInts(FileChannel channel, long position, int[] dest) throws IOException {
+        int perWindow = WINDOW / 4;
+        for (int from = 0; from < dest.length; from += perWindow) {
+            int length = Math.min(perWindow, dest.length - from);
+            channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * from, 4L * length)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(dest, from, length);
+        }
+        return aligned(position + 4L * dest.length);
+    }
+
+    private static void getLongs(FileChannel channel, long position, long[] dest) throws IOException {
+        int perWindow = WINDOW / 8;
+        for (int from = 0; from < dest.length; from += perWindow) {
+            int length = Math.min(perWindow, dest.length - from);
+            channel.map(FileChannel.MapMode.READ_ONLY, position + 8L * from, 8L * length)
+                    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(dest, from, length);
+        }
+    }
+
+    private static void putInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            ensure(channel, buffer, 4);
+            int length = Math.min(buffer.remaining() / 4, values.length - from);
+            buffer.asIntBuffer().put(values, from, length);
+            buffer.position(buffer.position() + 4 * length);
+            from += length;
+        }
+        align(channel, buffer);
+    }
+
+    private static void ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes)
+            flush(channel, buffer);
+        if (buffer.remaining() < bytes)
+            throw new IOException("Can't fit " + bytes + " bytes into the write buffer.");
+    }
+
+    private static void align(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = channel.position() + buffer.position();
+        for (long i = written; i < aligned(written); i++) {
+            ensure(channel, buffer, 1);
+            buffer.put((byte) 0);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,37 @@
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.StringNode;
+
+import java.util.Random;
+
+/**
+ * Small seeded random graphs for the tests that check against brute force. Nodes are "n0" until "n(nodes - 1)", all of
+ * them added up front so node i always has index i.
+ */
+public final class RandomGraphs {
+
+    private RandomGraphs() {
+    }
+
+    /**
+     * @param edges number of random pairs drawn, self loops and repeats are dropped.
+     */
+    public static MutableGraph<StringNode> mutable(long seed, int nodes, int edges) {
+        Random random = new Random(seed);
+        MutableGraph<StringNode> g = GraphBuilder.undirected().allowsSelfLoops(false).build();
+        for (int i = 0; i < nodes; i++)
+            g.addNode(new StringNode("n" + i));
+        for (int i = 0; i < edges; i++) {
+            int a = random.nextInt(nodes);
+            int b = random.nextInt(nodes);
+            if (a != b)
+                g.putEdge(new StringNode("n" + a), new StringNode("n" + b));
+        }
+        return g;
+    }
+
+    public static CSRGraph<StringNode> random(long seed, int nodes, int edges) {
+        return CSRGraph.of(mutable(seed, nodes, edges));
+    }
+}
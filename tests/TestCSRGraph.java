@@ -0,0 +1,70 @@
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.trianglez.TriangleFinder;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.CSRGraphBuilder;
+import com.trianglez.node.types.StringNode;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestCSRGraph {
+    private MutableGraph<StringNode> g;
+    private StringNode u = new StringNode("u");
+    private StringNode v = new StringNode("v");
+    private StringNode w = new StringNode("w");
+    private StringNode x = new StringNode("x");
+
+    @Before
+    public void before() {
+        this.g = GraphBuilder.undirected().allowsSelfLoops(false).build();
+        g.putEdge(u, v);
+        g.putEdge(u, w);
+        g.putEdge(u, x);
+        g.putEdge(v, w);
+        g.putEdge(x, w);
+    }
+
+    @Test
+    public void testFromGraph() {
+        CSRGraph<StringNode> csr = CSRGraph.of(g);
+        Assert.assertEquals(csr.nodeCount(), 4);
+        Assert.assertEquals(csr.edgeCount(), 5);
+        Assert.assertEquals(csr.degree(csr.indexOf(u)), 3);
+        Assert.assertEquals(csr.degree(csr.indexOf(v)), 2);
+        Assert.assertTrue(csr.hasEdge(csr.indexOf(x), csr.indexOf(w)));
+        Assert.assertFalse(csr.hasEdge(csr.indexOf(x), csr.indexOf(v)));
+        Assert.assertEquals(csr.indexOf(new StringNode("nope")), -1);
+        Assert.assertEquals(csr.node(csr.indexOf(w)), w);
+    }
+
+    @Test
+    public void testLocalTriangles() {
+        CSRGraph<StringNode> csr = CSRGraph.of(g);
+        Assert.assertEquals(csr.commonNeighbours(csr.indexOf(u), csr.indexOf(w)), 2);
+        Assert.assertEquals(csr.commonNeighbours(csr.indexOf(v), csr.indexOf(x)), 2);
+        Assert.assertEquals(csr.localTriangles(csr.indexOf(u)), 2);
+        Assert.assertEquals(csr.localTriangles(csr.indexOf(v)), 1);
+    }
+
+    @Test
+    public void testBuilderDropsLoopsAndDuplicates() {
+        CSRGraphBuilder<StringNode> builder = new CSRGraphBuilder<>();
+        builder.putEdge(u, v);
+        builder.putEdge(v, u);
+        builder.putEdge(u, u);
+        builder.putEdge(w, u);
+        CSRGraph<StringNode> csr = builder.build();
+        Assert.assertEquals(csr.nodeCount(), 3);
+        Assert.assertEquals(csr.edgeCount(), 2);
+        Assert.assertArrayEquals(csr.adjacent(csr.indexOf(u)), new int[]{csr.indexOf(v), csr.indexOf(w)});
+    }
+
+    @Test
+    public void testTriangleFinderOnCSR() throws Exception {
+        TriangleFinder<StringNode> tf = new TriangleFinder<>(CSRGraph.of(g), false);
+        Assert.assertEquals(tf.countLocalTriangles(), new TriangleFinder<>(g, false).countLocalTriangles());
+        Assert.assertEquals(tf.getTriangles().get(u).size(), 2);
+        Assert.assertEquals(0.66666d, tf.clusteringCoefficient(u), 0.001);
+    }
+}
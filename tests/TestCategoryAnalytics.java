@@ -0,0 +1,109 @@
+import com.trianglez.Algorithm;
+import com.trianglez.CategoryAnalytics;
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.CSRGraphBuilder;
+import com.trianglez.node.types.FBPageNode;
+import com.trianglez.node.types.StringNode;
+import com.trianglez.readers.FBGraphReader;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class TestCategoryAnalytics {
+    private CSRGraph<StringNode> g;
+    private Map<StringNode, String> categories = new HashMap<>();
+    private StringNode u = new StringNode("u");
+    private StringNode v = new StringNode("v");
+    private StringNode w = new StringNode("w");
+    private StringNode x = new StringNode("x");
+    private StringNode y = new StringNode("y");
+
+    @Before
+    public void before() {
+        CSRGraphBuilder<StringNode> builder = new CSRGraphBuilder<>();
+        // uvy is all a, uvw spans a and b, uwx spans a, b and c
+        builder.putEdge(u, v);
+        builder.putEdge(u, w);
+        builder.putEdge(u, x);
+        builder.putEdge(v, w);
+        builder.putEdge(x, w);
+        builder.putEdge(u, y);
+        builder.putEdge(v, y);
+        this.g = builder.build();
+        categories.put(u, "a");
+        categories.put(v, "a");
+        categories.put(y, "a");
+        categories.put(w, "b");
+        categories.put(x, "c");
+    }
+
+    @Test
+    public void testCounts() {
+        for (Algorithm algorithm : Algorithm.values()) {
+            for (ForkJoinPool pool : new ForkJoinPool[]{null, ForkJoinPool.commonPool()}) {
+                CategoryAnalytics<StringNode> ca = new CategoryAnalytics<>(g, categories::get, algorithm, pool);
+                Assert.assertEquals(ca.getCategories().size(), 3);
+                Assert.assertEquals(ca.countTriangles(), 3);
+                Assert.assertEquals(ca.countTrianglesSpanning(1), 1);
+                Assert.assertEquals(ca.countTrianglesSpanning(2), 1);
+                Assert.assertEquals(ca.countTrianglesSpanning(3), 1);
+                Assert.assertEquals(ca.countTriangles("a"), 1);
+                Assert.assertEquals(ca.countTriangles("b"), 0);
+                Assert.assertEquals(ca.countTouchingTriangles("a"), 3);
+                Assert.assertEquals(ca.countTouchingTriangles("b"), 2);
+                Assert.assertEquals(ca.countTouchingTriangles("c"), 1);
+                Assert.assertEquals(ca.countTriangles("a", "b"), 2);
+                Assert.assertEquals(ca.countTriangles("b", "a"), 2);
+                Assert.assertEquals(ca.countTriangles("b", "c"), 1);
+                Assert.assertEquals(ca.countLocalTriangles("a"), 6);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesCounter() {
+        CategoryAnalytics<StringNode> ca = new CategoryAnalytics<>(g, categories::get, false);
+        TriangleCounter<StringNode> tc = new TriangleCounter<>(g, false);
+        Assert.assertArrayEquals(ca.getLocalCounts(), tc.getLocalCounts());
+        Assert.assertEquals(ca.toCounter().avgClusteringCoefficient(), tc.avgClusteringCoefficient(), 0.00001);
+
+        // a is u, v and y
+        double avg = (tc.clusteringCoefficient(u) + tc.clusteringCoefficient(v) + tc.clusteringCoefficient(y)) / 3;
+        Assert.assertEquals(ca.avgClusteringCoefficient("a"), avg, 0.00001);
+        Assert.assertEquals(ca.globalClusteringCoefficient("a"), 6d / (12 + 6 + 2), 0.00001);
+        Assert.assertEquals(ca.avgClusteringCoefficient("c"), tc.clusteringCoefficient(x), 0.00001);
+    }
+
+    @Test
+    public void testDictionaryCodes() throws IOException {
+        FBGraphReader reader = new FBGraphReader();
+        reader.read(Paths.get("testres/tvshow_edges.csv").toFile());
+        reader.read(Paths.get("testres/politician_edges.csv").toFile());
+        CSRGraph<FBPageNode> fb = reader.getCSRGraph();
+        for (ForkJoinPool pool : new ForkJoinPool[]{null, ForkJoinPool.commonPool()}) {
+            CategoryAnalytics<FBPageNode> expected =
+                    new CategoryAnalytics<>(fb, FBPageNode::getCategory, Algorithm.FORWARD, pool);
+            CategoryAnalytics<FBPageNode> ca = CategoryAnalytics.of(fb, reader.getDictionary(), Algorithm.FORWARD,
+                    pool);
+            Assert.assertEquals(ca.getCategories(), expected.getCategories());
+            Assert.assertArrayEquals(ca.getLocalCounts(), expected.getLocalCounts());
+            for (String category : ca.getCategories()) {
+                Assert.assertEquals(ca.countTriangles(category), expected.countTriangles(category));
+                Assert.assertEquals(ca.countTouchingTriangles(category), expected.countTouchingTriangles(category));
+            }
+            Assert.assertEquals(ca.countTrianglesSpanning(1), expected.countTriangles());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCategory() {
+        new CategoryAnalytics<>(g, categories::get, false).countTriangles("d");
+    }
+}
@@ -0,0 +1,109 @@
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.trianglez.CliqueCounter;
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.StringNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestCliqueCounter {
+
+    /**
+     * Tries every set of k nodes that's sorted by index.
+     */
+    private static long bruteForce(CSRGraph<StringNode> g, int k, int[] clique, int depth, long[] local) {
+        if (depth == k) {
+            for (int u : clique)
+                local[u]++;
+            return 1;
+        }
+        long found = 0;
+        for (int u = depth == 0 ? 0 : clique[depth - 1] + 1; u < g.nodeCount(); u++) {
+            boolean adjacent = true;
+            for (int j = 0; j < depth && adjacent; j++)
+                adjacent = g.hasEdge(clique[j], u);
+            if (adjacent) {
+                clique[depth] = u;
+                found += bruteForce(g, k, clique, depth + 1, local);
+            }
+        }
+        return found;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        CSRGraph<StringNode> g = RandomGraphs.random(3, 25, 160);
+        for (int k = 3; k <= 6; k++) {
+            long[] local = new long[g.nodeCount()];
+            long expected = bruteForce(g, k, new int[k], 0, local);
+            for (ForkJoinPool pool : new ForkJoinPool[]{null, ForkJoinPool.commonPool()}) {
+                CliqueCounter<StringNode> cc = new CliqueCounter<>(g, k, pool);
+                Assert.assertEquals(cc.countCliques(), expected);
+                Assert.assertArrayEquals(cc.getLocalCounts(), local);
+            }
+        }
+        Assert.assertArrayEquals(new CliqueCounter<>(g, 3, false).getLocalCounts(),
+                new TriangleCounter<>(g, false).getLocalCounts());
+    }
+
+    @Test
+    public void testForEachClique() {
+        CSRGraph<StringNode> g = RandomGraphs.random(5, 20, 120);
+        long expected = new CliqueCounter<>(g, 4, false).countCliques();
+        for (ForkJoinPool pool : new ForkJoinPool[]{null, ForkJoinPool.commonPool()}) {
+            Set<List<Integer>> seen = ConcurrentHashMap.newKeySet();
+            Assert.assertTrue(CliqueCounter.forEachClique(g, 4, pool, clique -> {
+                Set<Integer> nodes = new HashSet<>();
+                for (int u : clique)
+                    nodes.add(u);
+                Assert.assertEquals(nodes.size(), 4);
+                for (int a : clique)
+                    for (int b : clique)
+                        Assert.assertTrue(a == b || g.hasEdge(a, b));
+                int[] sorted = clique.clone();
+                Arrays.sort(sorted);
+                seen.add(Arrays.asList(sorted[0], sorted[1], sorted[2], sorted[3]));
+                return true;
+            }));
+            Assert.assertEquals(seen.size(), expected);
+        }
+
+        AtomicInteger visits = new AtomicInteger();
+        Assert.assertFalse(CliqueCounter.forEachClique(g, 4, null, clique -> visits.incrementAndGet() < 2));
+        Assert.assertEquals(visits.get(), 2);
+    }
+
+    @Test
+    public void testDensity() {
+        MutableGraph<StringNode> g = GraphBuilder.undirected().allowsSelfLoops(false).build();
+        StringNode[] k5 = new StringNode[5];
+        for (int i = 0; i < k5.length; i++)
+            k5[i] = new StringNode("k" + i);
+        for (int i = 0; i < k5.length; i++)
+            for (int j = i + 1; j < k5.length; j++)
+                g.putEdge(k5[i], k5[j]);
+        StringNode tail = new StringNode("tail");
+        g.putEdge(k5[0], tail);
+        CliqueCounter<StringNode> cc = new CliqueCounter<>(CSRGraph.of(g), 4, false);
+        Assert.assertEquals(cc.countCliques(), 5);
+        Assert.assertEquals(cc.countLocalCliques(k5[1]), 4);
+        Assert.assertEquals(cc.cliqueDensity(k5[1]), 1, 0.00001);
+        // 4 of the 10 triples of its neighbours
+        Assert.assertEquals(cc.cliqueDensity(k5[0]), 0.4, 0.00001);
+        Assert.assertEquals(cc.cliqueDensity(tail), -1, 0.00001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooSmall() {
+        new CliqueCounter<>(RandomGraphs.random(1, 5, 5), 2, false);
+    }
+}
@@ -0,0 +1,77 @@
+import com.trianglez.CoefficientCache;
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.CSRGraphBuilder;
+import com.trianglez.node.types.StringNode;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestCoefficientCache {
+    private TriangleCounter<StringNode> tc;
+    private StringNode u = new StringNode("u");
+    private StringNode v = new StringNode("v");
+    private StringNode w = new StringNode("w");
+    private StringNode x = new StringNode("x");
+
+    @Before
+    public void before() {
+        CSRGraphBuilder<StringNode> builder = new CSRGraphBuilder<>();
+        builder.putEdge(u, v);
+        builder.putEdge(u, w);
+        builder.putEdge(u, x);
+        builder.putEdge(v, w);
+        builder.putEdge(x, w);
+        this.tc = new TriangleCounter<>(builder.build(), false);
+    }
+
+    @Test
+    public void testCachedAggregates() {
+        double[] coefficients = tc.getClusteringCoefficients();
+        Assert.assertSame(tc.getClusteringCoefficients(), coefficients);
+        Assert.assertEquals(coefficients[tc.getGraph().indexOf(v)], tc.clusteringCoefficient(v), 0.00001);
+        Assert.assertEquals(tc.avgClusteringCoefficient(), (2d / 3 + 1 + 2d / 3 + 1) / 4, 0.00001);
+        Assert.assertEquals(tc.globalClusteringCoefficient(), 6d / 16, 0.00001);
+        Assert.assertEquals(tc.globalClusteringCoefficient(), 6d / 16, 0.00001);
+    }
+
+    @Test
+    public void testSubsets() {
+        CSRGraph<StringNode> g = tc.getGraph();
+        CoefficientCache<StringNode> cache = new CoefficientCache<>(tc, 2);
+        double hubs = (tc.clusteringCoefficient(u) + tc.clusteringCoefficient(w)) / 2;
+        Assert.assertEquals(cache.avgClusteringCoefficient("hubs", n -> g.degree(g.indexOf(n)) == 3), hubs, 0.00001);
+        Assert.assertEquals(cache.globalClusteringCoefficient("hubs", n -> false), 4d / 12, 0.00001);
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(cache.getMisses(), 1);
+
+        Assert.assertEquals(cache.avgClusteringCoefficient(0, g.nodeCount()), tc.avgClusteringCoefficient(), 0.00001);
+        Assert.assertEquals(cache.globalClusteringCoefficient(0, g.nodeCount()), tc.globalClusteringCoefficient(),
+                0.00001);
+        Assert.assertEquals(cache.size(), 2);
+
+        // the range was used last, so hubs gets dropped
+        cache.avgClusteringCoefficient(0, 1);
+        Assert.assertEquals(cache.size(), 2);
+        cache.avgClusteringCoefficient("hubs", n -> true);
+        Assert.assertEquals(cache.getMisses(), 4);
+        Assert.assertEquals(cache.avgClusteringCoefficient(0, 0), -1, 0.00001);
+        Assert.assertEquals(cache.globalClusteringCoefficient(0, 0), -1, 0.00001);
+        Assert.assertEquals(cache.globalClusteringCoefficient("leaves", n -> g.degree(g.indexOf(n)) < 2), -1, 0.00001);
+    }
+
+    @Test
+    public void testNoWedges() {
+        CSRGraphBuilder<StringNode> builder = new CSRGraphBuilder<>();
+        builder.putEdge(u, v);
+        TriangleCounter<StringNode> edge = new TriangleCounter<>(builder.build(), false);
+        Assert.assertEquals(edge.globalClusteringCoefficient(), -1, 0.00001);
+        Assert.assertEquals(edge.globalClusteringCoefficient(), -1, 0.00001);
+        Assert.assertEquals(edge.avgClusteringCoefficient(), -1, 0.00001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadRange() {
+        new CoefficientCache<>(tc, 1).avgClusteringCoefficient(0, 5);
+    }
+}
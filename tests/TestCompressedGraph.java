@@ -0,0 +1,141 @@
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.trianglez.CompressedTriangleCounter;
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.CompressedGraph;
+import com.trianglez.graph.PartitionedGraph;
+import com.trianglez.graph.Reordering;
+import com.trianglez.node.types.FBPageDictionary;
+import com.trianglez.node.types.FBPageNode;
+import com.trianglez.node.types.StringNode;
+import com.trianglez.readers.FBGraphReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class TestCompressedGraph {
+
+    /**
+     * Node 0 is a hub, with rows long enough for several blocks.
+     */
+    private static CSRGraph<StringNode> random(long seed, int nodes, int edges) {
+        MutableGraph<StringNode> g = RandomGraphs.mutable(seed, nodes, edges);
+        for (int i = 1; i < nodes; i += 2)
+            g.putEdge(new StringNode("n0"), new StringNode("n" + i));
+        return CSRGraph.of(g);
+    }
+
+    @Test
+    public void testRows() {
+        CSRGraph<StringNode> g = random(1, 400, 3000);
+        CompressedGraph<StringNode> cg = CompressedGraph.of(g);
+        Assert.assertEquals(cg.nodeCount(), g.nodeCount());
+        Assert.assertEquals(cg.edgeCount(), g.edgeCount());
+        Assert.assertTrue(g.degree(0) > 2 * CompressedGraph.BLOCK);
+        for (int u = 0; u < g.nodeCount(); u++) {
+            int[] row = new int[cg.degree(u)];
+            Assert.assertEquals(cg.decode(u, row, 0), g.degree(u));
+            Assert.assertArrayEquals(row, g.adjacent(u));
+            Assert.assertEquals(cg.indexOf(g.node(u)), u);
+        }
+        int[] hub = g.adjacent(0);
+        CompressedGraph<StringNode>.Cursor cursor = cg.cursor(0);
+        for (int target = 0; target <= g.nodeCount(); target += 7) {
+            int expected = Integer.MAX_VALUE;
+            for (int v : hub) {
+                if (v >= target) {
+                    expected = v;
+                    break;
+                }
+            }
+            Assert.assertEquals(cursor.advanceTo(target), expected);
+            Assert.assertEquals(cg.hasEdge(0, target), g.hasEdge(0, target));
+        }
+        cursor = cg.cursor(0);
+        for (int position = 0; position < hub.length; position += 13) {
+            Assert.assertEquals(cursor.seek(position), hub[position]);
+            Assert.assertEquals(cursor.position(), position);
+        }
+        Assert.assertEquals(cursor.seek(hub.length), Integer.MAX_VALUE);
+        Assert.assertTrue(cg.sizeInBytes() < 4L * (g.getOffsets().length + g.getNeighbours().length));
+    }
+
+    @Test
+    public void testCounts() {
+        for (long seed = 0; seed < 3; seed++) {
+            CSRGraph<StringNode> g = random(seed, 300, 2500);
+            TriangleCounter<StringNode> expected = new TriangleCounter<>(g, false);
+            for (boolean parallelism : new boolean[]{false, true}) {
+                CompressedTriangleCounter<StringNode> tc =
+                        new CompressedTriangleCounter<>(CompressedGraph.of(g), parallelism);
+                Assert.assertArrayEquals(tc.getLocalCounts(), expected.getLocalCounts());
+                Assert.assertEquals(tc.countTriangles(), expected.countTriangles());
+                Assert.assertEquals(tc.globalClusteringCoefficient(), expected.globalClusteringCoefficient(), 1e-12);
+                Assert.assertEquals(tc.avgClusteringCoefficient(), expected.avgClusteringCoefficient(), 1e-12);
+            }
+            Reordering<StringNode> reordering = Reordering.of(g, Reordering.Strategy.DEGENERACY);
+            CompressedGraph<StringNode> cg = CompressedGraph.of(reordering.getGraph());
+            CompressedTriangleCounter<StringNode> tc = new CompressedTriangleCounter<>(cg, false);
+            Assert.assertArrayEquals(reordering.toOriginal(tc.getLocalCounts()), expected.getLocalCounts());
+            Assert.assertEquals(CompressedTriangleCounter.countTriangles(cg), expected.countTriangles());
+            for (StringNode n : g.getNodes())
+                Assert.assertEquals(tc.clusteringCoefficient(n), expected.clusteringCoefficient(n), 1e-12);
+        }
+    }
+
+    @Test
+    public void testFromEdges() throws IOException {
+        CSRGraph<StringNode> g = random(2, 400, 3000);
+        int[] offsets = g.getOffsets();
+        int[] neighbours = g.getNeighbours();
+        // every edge twice in both directions, plus self loops
+        PartitionedGraph.EdgeSource source = consumer -> {
+            for (int u = 0; u < g.nodeCount(); u++) {
+                consumer.edge(u, u);
+                for (int i = offsets[u]; i < offsets[u + 1]; i++)
+                    consumer.edge(u, neighbours[i]);
+            }
+        };
+        for (long budget : new long[]{64, 4096, Long.MAX_VALUE}) {
+            CompressedGraph<StringNode> cg = CompressedGraph.of(source, g::node, budget);
+            Assert.assertEquals(cg.nodeCount(), g.nodeCount());
+            Assert.assertEquals(cg.edgeCount(), g.edgeCount());
+            Assert.assertEquals(cg.getNodes(), g.getNodes());
+            Assert.assertEquals(cg.sizeInBytes(), CompressedGraph.of(g).sizeInBytes());
+            for (int u = 0; u < g.nodeCount(); u++) {
+                int[] row = new int[cg.degree(u)];
+                cg.decode(u, row, 0);
+                Assert.assertArrayEquals(row, g.adjacent(u));
+            }
+        }
+    }
+
+    @Test
+    public void testReadCompressed() throws IOException {
+        File file = Paths.get("testres/tvshow_edges.csv").toFile();
+        FBGraphReader reader = new FBGraphReader();
+        reader.read(file);
+        TriangleCounter<FBPageNode> expected = new TriangleCounter<>(reader.getCSRGraph(), false);
+        CompressedGraph<FBPageNode> cg = FBGraphReader.readCompressed(1 << 12, new FBPageDictionary(), file);
+        Assert.assertEquals(cg.edgeCount(), reader.getCSRGraph().edgeCount());
+        Assert.assertEquals(CompressedTriangleCounter.countTriangles(cg), expected.countTriangles());
+    }
+
+    @Test
+    public void testEmptyRows() {
+        MutableGraph<StringNode> g = GraphBuilder.undirected().allowsSelfLoops(false).build();
+        g.addNode(new StringNode("alone"));
+        g.putEdge(new StringNode("a"), new StringNode("b"));
+        CompressedGraph<StringNode> cg = CompressedGraph.of(CSRGraph.of(g));
+        int alone = cg.indexOf(new StringNode("alone"));
+        Assert.assertEquals(cg.degree(alone), 0);
+        Assert.assertEquals(cg.cursor(alone).next(), Integer.MAX_VALUE);
+        Assert.assertEquals(new CompressedTriangleCounter<>(cg, false).countTriangles(), 0);
+        Assert.assertEquals(Arrays.stream(new CompressedTriangleCounter<>(cg, true).getLocalCounts()).sum(), 0);
+    }
+}
@@ -0,0 +1,84 @@
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.trianglez.Algorithm;
+import com.trianglez.DynamicTriangleCounter;
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.StringNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class TestDynamicTriangleCounter {
+    private StringNode u = new StringNode("u");
+    private StringNode v = new StringNode("v");
+    private StringNode w = new StringNode("w");
+    private StringNode x = new StringNode("x");
+
+    @Test
+    public void testAddAndRemove() {
+        DynamicTriangleCounter<StringNode> dc = new DynamicTriangleCounter<>();
+        Assert.assertTrue(dc.addEdge(u, v));
+        Assert.assertTrue(dc.addEdge(u, w));
+        Assert.assertTrue(dc.addEdge(u, x));
+        Assert.assertEquals(dc.countTriangles(), 0);
+        Assert.assertTrue(dc.addEdge(v, w));
+        Assert.assertTrue(dc.addEdge(x, w));
+        Assert.assertFalse(dc.addEdge(w, x));
+        Assert.assertEquals(dc.countTriangles(), 2);
+        Assert.assertEquals(dc.countLocalTriangles(u), 2);
+        Assert.assertEquals(dc.countLocalTriangles(v), 1);
+        Assert.assertEquals(dc.clusteringCoefficient(u), 2d / 3d, 0.00001);
+
+        Assert.assertTrue(dc.removeEdge(w, u));
+        Assert.assertFalse(dc.removeEdge(w, u));
+        Assert.assertFalse(dc.hasEdge(u, w));
+        Assert.assertEquals(dc.countTriangles(), 0);
+        Assert.assertEquals(dc.countLocalTriangles(x), 0);
+        Assert.assertEquals(dc.edgeCount(), 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSelfLoop() {
+        new DynamicTriangleCounter<StringNode>().addEdge(u, u);
+    }
+
+    @Test
+    public void testMatchesRecount() throws Exception {
+        Random random = new Random(7);
+        StringNode[] nodes = new StringNode[40];
+        for (int i = 0; i < nodes.length; i++)
+            nodes[i] = new StringNode("n" + i);
+        MutableGraph<StringNode> g = GraphBuilder.undirected().allowsSelfLoops(false).build();
+        DynamicTriangleCounter<StringNode> dc = new DynamicTriangleCounter<>(
+                new TriangleCounter<>(CSRGraph.of(g), false));
+        for (int step = 0; step < 2000; step++) {
+            StringNode a = nodes[random.nextInt(nodes.length)];
+            StringNode b = nodes[random.nextInt(nodes.length)];
+            if (a.equals(b))
+                continue;
+            if (random.nextInt(3) == 0)
+                Assert.assertEquals(dc.removeEdge(a, b), g.removeEdge(a, b));
+            else
+                Assert.assertEquals(dc.addEdge(a, b), g.putEdge(a, b));
+
+            if (step % 250 == 0) {
+                TriangleCounter<StringNode> tc = new TriangleCounter<>(g, false, Algorithm.FORWARD);
+                Assert.assertEquals(dc.countTriangles(), tc.countTriangles());
+                for (StringNode n : g.nodes())
+                    Assert.assertEquals(dc.countLocalTriangles(n), tc.countLocalTriangles(n));
+                Assert.assertEquals(dc.globalClusteringCoefficient(), tc.globalClusteringCoefficient(), 0.00001);
+                Assert.assertEquals(dc.avgClusteringCoefficient(), tc.avgClusteringCoefficient(), 0.00001);
+            }
+        }
+
+        // picking up from a counted graph and freezing again gives the same counts
+        TriangleCounter<StringNode> tc = new TriangleCounter<>(g, false);
+        DynamicTriangleCounter<StringNode> seeded = new DynamicTriangleCounter<>(tc);
+        Assert.assertEquals(seeded.countTriangles(), dc.countTriangles());
+        TriangleCounter<StringNode> frozen = dc.snapshot();
+        Assert.assertEquals(frozen.getGraph().edgeCount(), dc.edgeCount());
+        Assert.assertEquals(new TriangleCounter<>(frozen.getGraph(), false).countTriangles(), frozen.countTriangles());
+    }
+}
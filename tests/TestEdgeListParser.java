@@ -0,0 +1,52 @@
+import com.trianglez.readers.EdgeListParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestEdgeListParser {
+
+    private List<String> parse(String contents) throws IOException {
+        File f = File.createTempFile("edges", ".csv");
+        f.deleteOnExit();
+        Files.write(f.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        List<String> edges = new ArrayList<>();
+        EdgeListParser.parse(f, (u, v) -> edges.add(u + "-" + v));
+        return edges;
+    }
+
+    @Test
+    public void testParse() throws IOException {
+        Assert.assertEquals(parse(" node_1,node_2\n0,1\r\n12,345\n7,8,9\nbad,1\n3\n\n4, 5"),
+                List.of("0-1", "12-345", "7-8", "4-5"));
+        Assert.assertEquals(parse("h\n1 2,3\n4,5 6\n7 ,8 \r\n9\t,\t10"), List.of("7-8", "9-10"));
+        Assert.assertEquals(parse("node_1,node_2\n"), List.of());
+        Assert.assertEquals(parse(""), List.of());
+    }
+
+    @Test
+    public void testParseDataset() throws IOException {
+        int[] lines = {0};
+        EdgeListParser.parse(Paths.get("testres/tvshow_edges.csv").toFile(), (u, v) -> lines[0]++);
+        Assert.assertEquals(lines[0], 17256);
+    }
+
+    @Test
+    public void testParseChunks() throws IOException {
+        File f = Paths.get("testres/tvshow_edges.csv").toFile();
+        List<String> whole = new ArrayList<>();
+        EdgeListParser.parse(f, (u, v) -> whole.add(u + "-" + v));
+        for (long chunk : new long[]{7, 100, 4096, 1 << 20}) {
+            List<String> edges = new ArrayList<>();
+            for (long from = 0; from < f.length(); from += chunk)
+                EdgeListParser.parse(f, from, Math.min(f.length(), from + chunk), (u, v) -> edges.add(u + "-" + v));
+            Assert.assertEquals(edges, whole);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import com.trianglez.Algorithm;
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.FBPageNode;
+import com.trianglez.readers.FBGraphReader;
+import com.trianglez.readers.FBGraphSnapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class TestFBGraphSnapshot {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        FBGraphReader reader = new FBGraphReader();
+        reader.read(Paths.get("testres/tvshow_edges.csv").toFile());
+        reader.read(Paths.get("testres/politician_edges.csv").toFile());
+        CSRGraph<FBPageNode> g = reader.getCSRGraph();
+        TriangleCounter<FBPageNode> counter = new TriangleCounter<>(g, false, Algorithm.FORWARD);
+
+        File file = File.createTempFile("graph", ".snapshot");
+        file.deleteOnExit();
+        FBGraphSnapshot.write(file, counter);
+        FBGraphSnapshot snapshot = FBGraphSnapshot.read(file);
+
+        CSRGraph<FBPageNode> loaded = snapshot.getGraph();
+        Assert.assertArrayEquals(loaded.getOffsets(), g.getOffsets());
+        Assert.assertArrayEquals(loaded.getNeighbours(), g.getNeighbours());
+        Assert.assertArrayEquals(loaded.degreeOrder(), g.degreeOrder());
+        Assert.assertEquals(loaded.getNodes(), g.getNodes());
+        Assert.assertTrue(snapshot.hasTriangleCounts());
+        Assert.assertEquals(snapshot.getTriangleCounter().avgClusteringCoefficient(),
+                counter.avgClusteringCoefficient(), 0.000001);
+
+        FBGraphSnapshot.write(file, g);
+        snapshot = FBGraphSnapshot.read(file);
+        Assert.assertFalse(snapshot.hasTriangleCounts());
+        Assert.assertEquals(new TriangleCounter<>(snapshot.getGraph(), false).countLocalTriangles(),
+                counter.countLocalTriangles());
+    }
+
+    @Test
+    public void testCorrupt() throws IOException {
+        FBGraphReader reader = new FBGraphReader();
+        reader.read(Paths.get("testres/tvshow_edges.csv").toFile());
+        File file = File.createTempFile("graph", ".snapshot");
+        file.deleteOnExit();
+        FBGraphSnapshot.write(file, reader.getCSRGraph());
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        // cut off inside the neighbours
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        assertCorrupt(file);
+        // cut off inside the category table
+        Files.write(file.toPath(), Arrays.copyOf(bytes, 30));
+        assertCorrupt(file);
+        // first category name claims to be longer than the file
+        byte[] corrupt = bytes.clone();
+        ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN).putInt(24, Integer.MAX_VALUE);
+        Files.write(file.toPath(), corrupt);
+        assertCorrupt(file);
+        // negative node count
+        corrupt = bytes.clone();
+        ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN).putInt(12, -1);
+        Files.write(file.toPath(), corrupt);
+        assertCorrupt(file);
+    }
+
+    private static void assertCorrupt(File file) {
+        try {
+            FBGraphSnapshot.read(file);
+            Assert.fail("read a corrupt snapshot");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotASnapshot() throws IOException {
+        FBGraphSnapshot.read(Paths.get("testres/tvshow_edges.csv").toFile());
+    }
+}
@@ -0,0 +1,73 @@
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.FBPageDictionary;
+import com.trianglez.node.types.FBPageNode;
+import com.trianglez.readers.FBGraphReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class TestFBPageDictionary {
+
+    @Test
+    public void testIntern() {
+        FBPageDictionary dictionary = new FBPageDictionary();
+        int sports = dictionary.category("Sports");
+        int cooking = dictionary.category("Cooking");
+        Assert.assertEquals(dictionary.category("Sports"), sports);
+
+        int a = dictionary.intern(sports, 1);
+        int b = dictionary.intern(cooking, 1);
+        int c = dictionary.intern(sports, 5000);
+        Assert.assertNotEquals(a, b);
+        Assert.assertEquals(dictionary.intern(sports, 1), a);
+        Assert.assertEquals(dictionary.intern(new FBPageNode(5000, "Sports")), c);
+        Assert.assertEquals(dictionary.size(), 3);
+
+        Assert.assertEquals(dictionary.node(a), new FBPageNode(1, "Sports"));
+        Assert.assertSame(dictionary.node(a).getCategory(), dictionary.node(c).getCategory());
+        Assert.assertEquals(dictionary.indexOf(new FBPageNode(1, "Cooking")), b);
+        Assert.assertEquals(dictionary.indexOf(new FBPageNode(2, "Cooking")), -1);
+        Assert.assertEquals(dictionary.indexOf(new FBPageNode(1, "Music")), -1);
+    }
+
+    @Test
+    public void testSparseIds() throws IOException {
+        FBPageDictionary dictionary = new FBPageDictionary();
+        int sports = dictionary.category("Sports");
+        int a = dictionary.intern(sports, 3);
+        int b = dictionary.intern(sports, 2000000000);
+        int c = dictionary.intern(sports, -7);
+        for (int id = 0; id < 1000; id++)
+            dictionary.intern(sports, id * 1000003);
+        Assert.assertEquals(dictionary.intern(sports, 3), a);
+        Assert.assertEquals(dictionary.indexOf(sports, 2000000000), b);
+        Assert.assertEquals(dictionary.indexOf(sports, -7), c);
+        Assert.assertEquals(dictionary.indexOf(sports, 4), -1);
+        Assert.assertEquals(dictionary.indexOf(sports, 1000003), dictionary.intern(sports, 1000003));
+        Assert.assertEquals(dictionary.size(), 1003);
+
+        File file = File.createTempFile("sparse_edges", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), Arrays.asList("node_1,node_2", "0,2000000000"));
+        FBGraphReader reader = new FBGraphReader();
+        reader.read(file);
+        Assert.assertEquals(reader.getCSRGraph().nodeCount(), 2);
+        Assert.assertEquals(reader.getCSRGraph().edgeCount(), 1);
+    }
+
+    @Test
+    public void testReaderSharesNodes() throws IOException {
+        FBGraphReader reader = new FBGraphReader();
+        reader.read(Paths.get("testres/tvshow_edges.csv").toFile());
+        CSRGraph<FBPageNode> g = reader.getCSRGraph();
+        Assert.assertEquals(g.nodeCount(), 3892);
+        FBPageNode node = g.node(10);
+        Assert.assertEquals(g.indexOf(new FBPageNode(node.getId(), node.getCategory())), 10);
+        Assert.assertSame(g.node(0).getCategory(), g.node(10).getCategory());
+    }
+}
@@ -1,4 +1,5 @@
 import com.google.common.graph.Graph;
+import com.trianglez.graph.CSRGraph;
 import com.trianglez.readers.FBGraphReader;
 import com.trianglez.node.types.FBPageNode;
 import org.junit.Assert;
@@ -6,7 +7,11 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
 
 public class TestGraphReader {
 
@@ -27,4 +32,42 @@ public class TestGraphReader {
         Assert.assertTrue(819306 - g.edges().size() < 1000);
     }
 
+    @Test
+    public void testReadDirectory() throws IOException {
+        FBGraphReader sequential = new FBGraphReader();
+        File[] files = Paths.get("testres").toFile().listFiles((d, name) -> name.endsWith("_edges.csv"));
+        for (File f : files)
+            sequential.read(f);
+        CSRGraph<FBPageNode> expected = sequential.getCSRGraph();
+
+        FBGraphReader parallel = new FBGraphReader();
+        parallel.readDirectory(Paths.get("testres").toFile());
+        CSRGraph<FBPageNode> g = parallel.getCSRGraph();
+        Assert.assertEquals(g.nodeCount(), expected.nodeCount());
+        Assert.assertEquals(g.edgeCount(), expected.edgeCount());
+        for (int u = 0; u < g.nodeCount(); u += 97) {
+            FBPageNode n = g.node(u);
+            int e = expected.indexOf(n);
+            Assert.assertEquals(g.degree(u), expected.degree(e));
+            Assert.assertEquals(parallel.getDictionary().categoryName(parallel.getDictionary().categoryOf(u)),
+                    n.getCategory());
+        }
+        Assert.assertEquals(parallel.getDictionary().categoryCount(), files.length);
+    }
+
+    @Test
+    public void testReadAllSparseIds() throws IOException {
+        File file = File.createTempFile("sparse_edges", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), Arrays.asList("node_1,node_2", "2000000000,5", "5,0", "0,2000000000", "7,5"));
+        FBGraphReader reader = new FBGraphReader();
+        reader.readAll(Collections.singletonList(file), ForkJoinPool.commonPool());
+        CSRGraph<FBPageNode> g = reader.getCSRGraph();
+        Assert.assertEquals(g.nodeCount(), 4);
+        Assert.assertEquals(g.edgeCount(), 4);
+        int[] ids = {0, 5, 7, 2000000000};
+        for (int u = 0; u < ids.length; u++)
+            Assert.assertEquals(g.node(u).getId(), ids[u]);
+        Assert.assertEquals(g.degree(1), 3);
+    }
 }
@@ -0,0 +1,113 @@
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.trianglez.GraphletCensus;
+import com.trianglez.GraphletCensus.Graphlet;
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.StringNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class TestGraphletCensus {
+
+    /**
+     * Classifies every set of 3 and 4 nodes by its edges and counts the 4-cycles through each node on the way.
+     */
+    private static Map<Graphlet, Long> bruteForce(CSRGraph<StringNode> g, long[] cycles) {
+        Map<Graphlet, Long> counts = new EnumMap<>(Graphlet.class);
+        for (Graphlet graphlet : Graphlet.values())
+            counts.put(graphlet, 0L);
+        int n = g.nodeCount();
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                for (int c = b + 1; c < n; c++) {
+                    int edges = edges(g, a, b, c);
+                    if (edges == 2)
+                        counts.merge(Graphlet.WEDGE, 1L, Long::sum);
+                    else if (edges == 3)
+                        counts.merge(Graphlet.TRIANGLE, 1L, Long::sum);
+                    for (int d = c + 1; d < n; d++) {
+                        int[] s = {a, b, c, d};
+                        int[] degrees = new int[4];
+                        int m = 0;
+                        for (int i = 0; i < 4; i++) {
+                            for (int j = i + 1; j < 4; j++) {
+                                if (g.hasEdge(s[i], s[j])) {
+                                    degrees[i]++;
+                                    degrees[j]++;
+                                    m++;
+                                }
+                            }
+                        }
+                        int max = Math.max(Math.max(degrees[0], degrees[1]), Math.max(degrees[2], degrees[3]));
+                        int min = Math.min(Math.min(degrees[0], degrees[1]), Math.min(degrees[2], degrees[3]));
+                        // 3 and 4 edges on 4 nodes are connected unless one node is left out
+                        Graphlet graphlet = null;
+                        if (m == 3 && min > 0)
+                            graphlet = max == 3 ? Graphlet.STAR : Graphlet.PATH;
+                        else if (m == 4 && min > 0)
+                            graphlet = max == 2 ? Graphlet.CYCLE : Graphlet.TAILED_TRIANGLE;
+                        else if (m == 5)
+                            graphlet = Graphlet.DIAMOND;
+                        else if (m == 6)
+                            graphlet = Graphlet.CLIQUE;
+                        if (graphlet != null)
+                            counts.merge(graphlet, 1L, Long::sum);
+                        int fourCycles = graphlet == Graphlet.CLIQUE ? 3 :
+                                graphlet == Graphlet.DIAMOND || graphlet == Graphlet.CYCLE ? 1 : 0;
+                        for (int u : s)
+                            cycles[u] += fourCycles;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static int edges(CSRGraph<StringNode> g, int a, int b, int c) {
+        return (g.hasEdge(a, b) ? 1 : 0) + (g.hasEdge(a, c) ? 1 : 0) + (g.hasEdge(b, c) ? 1 : 0);
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        for (long seed = 0; seed < 3; seed++) {
+            CSRGraph<StringNode> g = RandomGraphs.random(seed, 22, 70);
+            long[] cycles = new long[g.nodeCount()];
+            Map<Graphlet, Long> expected = bruteForce(g, cycles);
+            for (boolean parallelism : new boolean[]{false, true}) {
+                GraphletCensus<StringNode> census = new GraphletCensus<>(g, parallelism);
+                for (Graphlet graphlet : Graphlet.values())
+                    Assert.assertEquals(graphlet.name(), census.count(graphlet), (long) expected.get(graphlet));
+                Assert.assertArrayEquals(census.getLocalCounts(Graphlet.CYCLE), cycles);
+                Assert.assertArrayEquals(census.getLocalCounts(Graphlet.TRIANGLE),
+                        new TriangleCounter<>(g, false).getLocalCounts());
+            }
+        }
+    }
+
+    @Test
+    public void testDiamond() {
+        MutableGraph<StringNode> g = GraphBuilder.undirected().allowsSelfLoops(false).build();
+        StringNode a = new StringNode("a");
+        StringNode b = new StringNode("b");
+        StringNode c = new StringNode("c");
+        StringNode d = new StringNode("d");
+        g.putEdge(a, b);
+        g.putEdge(a, c);
+        g.putEdge(a, d);
+        g.putEdge(b, c);
+        g.putEdge(b, d);
+        GraphletCensus<StringNode> census = new GraphletCensus<>(CSRGraph.of(g), false);
+        Assert.assertEquals(census.count(Graphlet.DIAMOND), 1);
+        Assert.assertEquals(census.countNonInduced(Graphlet.CYCLE), 1);
+        Assert.assertEquals(census.countNonInduced(Graphlet.TAILED_TRIANGLE), 4);
+        Assert.assertEquals(census.countNonInduced(Graphlet.PATH), 6);
+        Assert.assertEquals(census.count(Graphlet.PATH), 0);
+        // WEDGE, TRIANGLE, STAR, PATH, TAILED_TRIANGLE, CYCLE, DIAMOND, CLIQUE
+        Assert.assertArrayEquals(census.features(a), new long[]{1, 2, 1, 4, 2, 1, 1, 0});
+        Assert.assertArrayEquals(census.features(c), new long[]{0, 1, 0, 2, 0, 1, 0, 0});
+    }
+}
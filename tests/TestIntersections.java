@@ -0,0 +1,51 @@
+import com.trianglez.graph.Intersections;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class TestIntersections {
+
+    private static int[] sortedSet(Random random, int size, int bound) {
+        return IntStream.generate(() -> random.nextInt(bound)).limit(size).sorted().distinct().toArray();
+    }
+
+    @Test
+    public void testKernelsAgree() {
+        Random random = new Random(3);
+        int[][] shapes = {{0, 10}, {5, 5}, {10, 12}, {40, 60}, {3, 500}, {200, 200}, {2, 5000}};
+        for (int[] shape : shapes) {
+            for (int rep = 0; rep < 20; rep++) {
+                int[] a = sortedSet(random, shape[0], 4 * shape[1] + 1);
+                int[] b = sortedSet(random, shape[1], 4 * shape[1] + 1);
+                int[] expected = Arrays.stream(a).filter(x -> Arrays.binarySearch(b, x) >= 0).toArray();
+                int[] out = new int[Math.min(a.length, b.length) + 1];
+
+                Assert.assertEquals(Intersections.count(a, 0, a.length, b, 0, b.length), expected.length);
+                Assert.assertEquals(Intersections.count(b, 0, b.length, a, 0, a.length), expected.length);
+                Assert.assertEquals(Intersections.mergeCount(a, 0, a.length, b, 0, b.length), expected.length);
+                Assert.assertEquals(Intersections.gallopCount(a, 0, a.length, b, 0, b.length), expected.length);
+                Assert.assertEquals(Intersections.branchlessCount(a, 0, a.length, b, 0, b.length), expected.length);
+
+                int found = Intersections.intersect(a, 0, a.length, b, 0, b.length, out, 1);
+                Assert.assertArrayEquals(Arrays.copyOfRange(out, 1, 1 + found), expected);
+                found = Intersections.merge(a, 0, a.length, b, 0, b.length, out, 0);
+                Assert.assertArrayEquals(Arrays.copyOf(out, found), expected);
+                found = Intersections.gallop(a, 0, a.length, b, 0, b.length, out, 0);
+                Assert.assertArrayEquals(Arrays.copyOf(out, found), expected);
+                found = Intersections.branchless(a, 0, a.length, b, 0, b.length, out, 0);
+                Assert.assertArrayEquals(Arrays.copyOf(out, found), expected);
+            }
+        }
+    }
+
+    @Test
+    public void testSubRanges() {
+        int[] row = {1, 3, 5, 7, 9, 2, 3, 4, 5, 6, 7};
+        Assert.assertEquals(Intersections.count(row, 0, 5, row, 5, 11), 3);
+        Assert.assertEquals(Intersections.count(row, 1, 3, row, 6, 8), 1);
+        Assert.assertEquals(Intersections.count(row, 2, 2, row, 5, 11), 0);
+    }
+}
@@ -0,0 +1,87 @@
+import com.trianglez.Algorithm;
+import com.trianglez.ExternalTriangleCounter;
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.PartitionedGraph;
+import com.trianglez.node.types.FBPageDictionary;
+import com.trianglez.node.types.FBPageNode;
+import com.trianglez.readers.FBGraphReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class TestPartitionedGraph {
+
+    @Test
+    public void testMatchesInMemory() throws Exception {
+        FBGraphReader reader = new FBGraphReader();
+        reader.read(Paths.get("testres/government_edges.csv").toFile());
+        CSRGraph<FBPageNode> g = reader.getCSRGraph();
+        TriangleCounter<FBPageNode> tc = new TriangleCounter<>(g, false, Algorithm.FORWARD);
+
+        File dir = Files.createTempDirectory("partitions").toFile();
+        PartitionedGraph pg = PartitionedGraph.write(dir, g, 100_000);
+        try {
+            Assert.assertTrue(pg.partitions() > 5);
+            Assert.assertEquals(pg.edgeCount(), g.edgeCount());
+            ExternalTriangleCounter<FBPageNode> etc = new ExternalTriangleCounter<>(pg, g::indexOf);
+            Assert.assertArrayEquals(etc.getLocalCounts(), tc.getLocalCounts());
+            Assert.assertEquals(etc.globalClusteringCoefficient(), tc.globalClusteringCoefficient(), 0.00001);
+            Assert.assertEquals(etc.avgClusteringCoefficient(), tc.avgClusteringCoefficient(), 0.00001);
+        } finally {
+            pg.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testReadPartitioned() throws Exception {
+        List<File> files = List.of(Paths.get("testres/tvshow_edges.csv").toFile(),
+                Paths.get("testres/politician_edges.csv").toFile());
+        FBGraphReader reader = new FBGraphReader();
+        for (File f : files)
+            reader.read(f);
+        TriangleCounter<FBPageNode> tc = new TriangleCounter<>(reader.getCSRGraph(), false);
+
+        File dir = Files.createTempDirectory("partitions").toFile();
+        FBPageDictionary dictionary = new FBPageDictionary();
+        PartitionedGraph pg = FBGraphReader.readPartitioned(dir, 50_000, dictionary, files.toArray(new File[0]));
+        try {
+            ExternalTriangleCounter<FBPageNode> etc = new ExternalTriangleCounter<>(pg, dictionary::indexOf);
+            Assert.assertEquals(etc.countTriangles(), tc.countTriangles());
+            FBPageNode node = reader.getCSRGraph().node(123);
+            Assert.assertEquals(etc.countLocalTriangles(node), tc.countLocalTriangles(node));
+
+            Set<Set<FBPageNode>> seen = new HashSet<>();
+            Assert.assertTrue(ExternalTriangleCounter.forEachTriangle(pg, (a, b, c) ->
+                    seen.add(Set.of(dictionary.node(a), dictionary.node(b), dictionary.node(c)))));
+            Assert.assertEquals(seen.size(), tc.countTriangles());
+            Assert.assertFalse(ExternalTriangleCounter.forEachTriangle(pg, (a, b, c) -> false));
+        } finally {
+            pg.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testNoEdges() throws Exception {
+        File dir = Files.createTempDirectory("partitions").toFile();
+        PartitionedGraph pg = PartitionedGraph.write(dir, c -> {
+        }, 1 << 20);
+        try {
+            Assert.assertEquals(pg.partitions(), 0);
+            Assert.assertEquals(pg.nodeCount(), 0);
+            Assert.assertEquals(pg.edgeCount(), 0);
+            Assert.assertTrue(ExternalTriangleCounter.forEachTriangle(pg, (a, b, c) -> false));
+        } finally {
+            pg.delete();
+            dir.delete();
+        }
+    }
+}
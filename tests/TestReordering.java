@@ -0,0 +1,64 @@
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.CSRGraphBuilder;
+import com.trianglez.graph.Reordering;
+import com.trianglez.node.types.StringNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestReordering {
+
+    @Test
+    public void testSameGraph() {
+        CSRGraph<StringNode> g = RandomGraphs.random(2, 60, 300);
+        TriangleCounter<StringNode> expected = new TriangleCounter<>(g, false);
+        for (Reordering.Strategy strategy : Reordering.Strategy.values()) {
+            Reordering<StringNode> reordering = Reordering.of(g, strategy);
+            CSRGraph<StringNode> h = reordering.getGraph();
+            Assert.assertEquals(h.nodeCount(), g.nodeCount());
+            Assert.assertEquals(h.edgeCount(), g.edgeCount());
+            for (int u = 0; u < g.nodeCount(); u++) {
+                int r = reordering.fromOriginal(u);
+                Assert.assertEquals(reordering.toOriginal(r), u);
+                Assert.assertEquals(h.node(r), g.node(u));
+                for (int v : g.adjacent(u))
+                    Assert.assertTrue(h.hasEdge(r, reordering.fromOriginal(v)));
+            }
+            TriangleCounter<StringNode> tc = new TriangleCounter<>(h, false);
+            Assert.assertArrayEquals(reordering.toOriginal(tc.getLocalCounts()), expected.getLocalCounts());
+            for (StringNode n : g.getNodes())
+                Assert.assertEquals(tc.countLocalTriangles(n), expected.countLocalTriangles(n));
+        }
+    }
+
+    @Test
+    public void testStrategies() {
+        CSRGraphBuilder<StringNode> builder = new CSRGraphBuilder<>();
+        // a path p0 - p1 - p2 - p3 - p4 with its edges added out of order
+        StringNode[] path = new StringNode[5];
+        for (int i = 0; i < path.length; i++)
+            path[i] = new StringNode("p" + i);
+        builder.putEdge(path[3], path[4]);
+        builder.putEdge(path[0], path[1]);
+        builder.putEdge(path[2], path[3]);
+        builder.putEdge(path[1], path[2]);
+        CSRGraph<StringNode> g = builder.build();
+
+        Reordering<StringNode> rcm = Reordering.of(g, Reordering.Strategy.RCM);
+        // every edge of a path joins consecutive indices
+        for (int i = 0; i + 1 < path.length; i++) {
+            int a = rcm.getGraph().indexOf(path[i]);
+            int b = rcm.getGraph().indexOf(path[i + 1]);
+            Assert.assertEquals(Math.abs(a - b), 1);
+        }
+
+        Reordering<StringNode> degree = Reordering.of(g, Reordering.Strategy.DEGREE);
+        Assert.assertEquals(degree.getGraph().degree(0), 2);
+        Assert.assertEquals(degree.getGraph().degree(4), 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotAPermutation() {
+        new Reordering<>(RandomGraphs.random(1, 4, 4), new int[]{0, 1, 1, 2});
+    }
+}
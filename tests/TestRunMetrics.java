@@ -0,0 +1,86 @@
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.trianglez.Algorithm;
+import com.trianglez.RunMetrics;
+import com.trianglez.TriangleCounter;
+import com.trianglez.TriangleFinder;
+import com.trianglez.node.types.StringNode;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public class TestRunMetrics {
+    private MutableGraph<StringNode> g;
+    private StringNode u = new StringNode("u");
+    private StringNode v = new StringNode("v");
+    private StringNode w = new StringNode("w");
+    private StringNode x = new StringNode("x");
+
+    @Before
+    public void before() {
+        this.g = GraphBuilder.undirected().allowsSelfLoops(false).build();
+        g.putEdge(u, v);
+        g.putEdge(u, w);
+        g.putEdge(u, x);
+        g.putEdge(v, w);
+        g.putEdge(x, w);
+    }
+
+    @Test
+    public void testCounters() throws Exception {
+        for (boolean parallelism : new boolean[]{false, true}) {
+            RunMetrics metrics = new RunMetrics();
+            TriangleCounter<StringNode> tc = new TriangleCounter<>(g, parallelism, Algorithm.NODE_ITERATOR, metrics);
+            Assert.assertSame(tc.getMetrics(), metrics);
+            // every node checks all pairs of its neighbours, one intersection per neighbour but the last
+            Assert.assertEquals(metrics.getWedgesChecked(), 3 + 1 + 3 + 1);
+            Assert.assertEquals(metrics.getAdjacencyProbes(), 2 + 1 + 2 + 1);
+            Assert.assertEquals(metrics.getTrianglesFound(), 6);
+            Assert.assertEquals(metrics.getProgress(), 1, 0.00001);
+
+            metrics = new RunMetrics();
+            new TriangleCounter<>(g, parallelism, Algorithm.FORWARD, metrics);
+            Assert.assertEquals(metrics.getTrianglesFound(), 2);
+        }
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        Set<RunMetrics.Phase> phases = EnumSet.noneOf(RunMetrics.Phase.class);
+        int[] progress = new int[1];
+        RunMetrics metrics = new RunMetrics(new RunMetrics.Listener() {
+            @Override
+            public void onPhase(RunMetrics.Phase phase, long nanos) {
+                phases.add(phase);
+            }
+
+            @Override
+            public void onProgress(RunMetrics metrics) {
+                progress[0]++;
+            }
+        }, 0);
+        TriangleFinder<StringNode> tf = new TriangleFinder<>(g, true, Algorithm.FORWARD, metrics);
+        Assert.assertEquals(phases, EnumSet.of(RunMetrics.Phase.LOAD, RunMetrics.Phase.ENUMERATE,
+                RunMetrics.Phase.COLLECT));
+        Assert.assertTrue(progress[0] > 0);
+
+        tf.distinctTriangles();
+        tf.avgClusteringCoefficient();
+        Assert.assertEquals(phases, EnumSet.allOf(RunMetrics.Phase.class));
+    }
+
+    @Test
+    public void testHotspots() throws Exception {
+        RunMetrics metrics = new RunMetrics();
+        TriangleCounter<StringNode> tc = new TriangleCounter<>(g, false, Algorithm.FORWARD, metrics);
+        List<RunMetrics.Hotspot> top = metrics.getHotspots(2);
+        Assert.assertEquals(top.size(), 2);
+        Assert.assertTrue(top.get(0).getNanos() >= top.get(1).getNanos());
+        Assert.assertTrue(tc.getGraph().node(top.get(0).getIndex()) != null);
+        Assert.assertEquals(metrics.getHotspots(10).size(), 4);
+    }
+}
@@ -0,0 +1,98 @@
+import com.trianglez.Algorithm;
+import com.trianglez.StreamingTriangleEstimator;
+import com.trianglez.TriangleCounter;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.node.types.FBPageNode;
+import com.trianglez.readers.FBGraphReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestStreamingTriangleEstimator {
+
+    @Test
+    public void testSmallStream() {
+        StreamingTriangleEstimator estimator = new StreamingTriangleEstimator(100, 1);
+        estimator.edge(0, 1);
+        estimator.edge(0, 2);
+        estimator.edge(0, 3);
+        estimator.edge(1, 1);
+        estimator.edge(1, 2);
+        estimator.edge(3, 2);
+        Assert.assertEquals(estimator.edgeCount(), 5);
+        Assert.assertEquals(estimator.countTriangles(), 2, 0.00001);
+        Assert.assertEquals(estimator.countLocalTriangles(0), 2, 0.00001);
+        Assert.assertEquals(estimator.countLocalTriangles(1), 1, 0.00001);
+        Assert.assertEquals(estimator.clusteringCoefficient(0), 2d / 3d, 0.00001);
+        Assert.assertEquals(estimator.globalClusteringCoefficient(), 6d / 16d, 0.00001);
+        Assert.assertEquals(estimator.clusteringCoefficient(7), -1, 0.00001);
+    }
+
+    @Test
+    public void testRepeatedEdges() {
+        StreamingTriangleEstimator estimator = new StreamingTriangleEstimator(100, 1);
+        estimator.edge(0, 1);
+        estimator.edge(1, 0);
+        estimator.edge(0, 1);
+        estimator.edge(1, 2);
+        estimator.edge(2, 0);
+        estimator.edge(0, 2);
+        Assert.assertEquals(estimator.edgeCount(), 3);
+        Assert.assertEquals(estimator.sampledEdges(), 3);
+        Assert.assertEquals(estimator.degree(0), 2);
+        Assert.assertEquals(estimator.countTriangles(), 1, 0.00001);
+        Assert.assertEquals(estimator.clusteringCoefficient(0), 1, 0.00001);
+    }
+
+    @Test
+    public void testHugeIds() {
+        int big = Integer.MAX_VALUE - 1;
+        StreamingTriangleEstimator estimator = new StreamingTriangleEstimator(100, 1);
+        estimator.edge(big, 5);
+        estimator.edge(5, big - 1);
+        estimator.edge(big - 1, big);
+        estimator.edge(big, 1 << 30);
+        Assert.assertEquals(estimator.edgeCount(), 4);
+        Assert.assertEquals(estimator.degree(big), 3);
+        Assert.assertEquals(estimator.degree(big - 2), 0);
+        Assert.assertEquals(estimator.countTriangles(), 1, 0.00001);
+        Assert.assertEquals(estimator.countLocalTriangles(big - 1), 1, 0.00001);
+        Assert.assertEquals(estimator.clusteringCoefficient(5), 1, 0.00001);
+        Assert.assertEquals(estimator.avgClusteringCoefficient(), (1d / 3d + 1 + 1) / 3d, 0.00001);
+    }
+
+    @Test
+    public void testExactWhenEverythingFits() throws Exception {
+        File file = Paths.get("testres/tvshow_edges.csv").toFile();
+        FBGraphReader reader = new FBGraphReader();
+        reader.read(file);
+        TriangleCounter<FBPageNode> tc = new TriangleCounter<>(reader.getCSRGraph(), false, Algorithm.FORWARD);
+
+        AtomicInteger reports = new AtomicInteger();
+        StreamingTriangleEstimator estimator = StreamingTriangleEstimator.read(file, 20000, 1000,
+                e -> reports.incrementAndGet());
+        Assert.assertEquals(reports.get(), 17);
+        Assert.assertEquals(estimator.countTriangles(), tc.countTriangles(), 0.00001);
+        Assert.assertEquals(estimator.globalClusteringCoefficient(), tc.globalClusteringCoefficient(), 0.00001);
+        Assert.assertEquals(estimator.avgClusteringCoefficient(), tc.avgClusteringCoefficient(), 0.00001);
+    }
+
+    @Test
+    public void testSampledEstimate() throws Exception {
+        File file = Paths.get("testres/government_edges.csv").toFile();
+        FBGraphReader reader = new FBGraphReader();
+        reader.read(file);
+        CSRGraph<FBPageNode> g = reader.getCSRGraph();
+        TriangleCounter<FBPageNode> tc = new TriangleCounter<>(g, false, Algorithm.FORWARD);
+
+        StreamingTriangleEstimator estimator = new StreamingTriangleEstimator(30000, 5);
+        estimator.read(file, 0, null);
+        Assert.assertEquals(estimator.sampledEdges(), 30000);
+        Assert.assertEquals(estimator.edgeCount(), g.edgeCount());
+        Assert.assertEquals(estimator.countTriangles() / tc.countTriangles(), 1, 0.05);
+        Assert.assertEquals(estimator.globalClusteringCoefficient() / tc.globalClusteringCoefficient(), 1, 0.05);
+    }
+}
@@ -3,6 +3,8 @@ import com.trianglez.node.types.StringNode;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.List;
+
 public class TestTriangle {
     private Triangle<StringNode> triangle1 = new Triangle<>(
             new StringNode("One"), new StringNode("Two"), new StringNode("Three"));
@@ -29,6 +31,39 @@ public class TestTriangle {
         Assert.assertFalse(triangle1.getNodes().containsAll(triangle3.getNodes()));
     }
 
+    /**
+     * Two different triangles whose hashes collide must not be equal.
+     */
+    @Test
+    public void testEqualsComparesNodes() {
+        Triangle<StringNode> triangle = new Triangle<>(new SameHashNode("a"), new SameHashNode("b"),
+                new SameHashNode("c"));
+        Triangle<StringNode> other = new Triangle<>(new SameHashNode("a"), new SameHashNode("b"),
+                new SameHashNode("d"));
+        Assert.assertEquals(triangle.hashCode(), other.hashCode());
+        Assert.assertNotEquals(triangle, other);
+        Assert.assertEquals(triangle, new Triangle<>(new SameHashNode("c"), new SameHashNode("a"),
+                new SameHashNode("b")));
+    }
+
+    @Test
+    public void testGetNodesSorted() {
+        Assert.assertEquals(triangle4.getNodes(),
+                List.of(new StringNode("One"), new StringNode("Three"), new StringNode("Two")));
+    }
+
+    @SuppressWarnings("serial")
+    private static class SameHashNode extends StringNode {
+        SameHashNode(String inner) {
+            super(inner);
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
     @Test
     public void testToString() {
         Assert.assertEquals(triangle1.toString(),"(One,Three,Two)");
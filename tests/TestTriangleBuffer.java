@@ -0,0 +1,51 @@
+import com.trianglez.Algorithm;
+import com.trianglez.Triangle;
+import com.trianglez.TriangleBuffer;
+import com.trianglez.TriangleFinder;
+import com.trianglez.readers.FBGraphReader;
+import com.trianglez.node.types.FBPageNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+
+public class TestTriangleBuffer {
+
+    @Test
+    public void testAddSorts() {
+        TriangleBuffer buffer = new TriangleBuffer(1);
+        buffer.add(5, 1, 3);
+        buffer.add(2, 9, 0);
+        Assert.assertEquals(buffer.size(), 2);
+        Assert.assertEquals(buffer.get(0, 0), 1);
+        Assert.assertEquals(buffer.get(0, 1), 3);
+        Assert.assertEquals(buffer.get(0, 2), 5);
+        Assert.assertEquals(buffer.get(1, 0), 0);
+        Assert.assertEquals(buffer.get(1, 2), 9);
+
+        TriangleBuffer more = new TriangleBuffer();
+        more.addAll(buffer);
+        more.addAll(buffer);
+        Assert.assertEquals(more.size(), 4);
+        Assert.assertEquals(more.get(3, 1), 2);
+    }
+
+    @Test
+    public void testCollectTriangles() throws IOException {
+        FBGraphReader reader = new FBGraphReader();
+        reader.read(Paths.get("testres/tvshow_edges.csv").toFile());
+        for (boolean parallelism : new boolean[]{false, true}) {
+            TriangleFinder<FBPageNode> tf = new TriangleFinder<>(reader.getCSRGraph(), parallelism,
+                    Algorithm.FORWARD);
+            TriangleBuffer buffer = tf.collectTriangles();
+            Assert.assertEquals(buffer.size(), tf.countTriangles());
+            Set<Triangle<FBPageNode>> triangles = new HashSet<>();
+            for (int i = 0; i < buffer.size(); i++)
+                triangles.add(buffer.triangle(tf.getGraph(), i));
+            Assert.assertEquals(triangles, tf.uniqueTriangles(false));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.trianglez.Algorithm;
+import com.trianglez.Triangle;
+import com.trianglez.TriangleCounter;
+import com.trianglez.TriangleFinder;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.CSRGraphBuilder;
+import com.trianglez.node.types.StringNode;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestTriangleCounter {
+    private MutableGraph<StringNode> g;
+    private StringNode u = new StringNode("u");
+    private StringNode v = new StringNode("v");
+    private StringNode w = new StringNode("w");
+    private StringNode x = new StringNode("x");
+
+    @Before
+    public void before() {
+        this.g = GraphBuilder.undirected().allowsSelfLoops(false).build();
+        g.putEdge(u, v);
+        g.putEdge(u, w);
+        g.putEdge(u, x);
+        g.putEdge(v, w);
+        g.putEdge(x, w);
+    }
+
+    @Test
+    public void testCounts() throws Exception {
+        for (Algorithm algorithm : Algorithm.values()) {
+            for (boolean parallelism : new boolean[]{false, true}) {
+                TriangleCounter<StringNode> tc = new TriangleCounter<>(g, parallelism, algorithm);
+                Assert.assertEquals(tc.countLocalTriangles(), 6);
+                Assert.assertEquals(tc.countTriangles(), 2);
+                Assert.assertEquals(tc.countLocalTriangles(u), 2);
+                Assert.assertEquals(tc.countLocalTriangles(v), 1);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesFinder() throws Exception {
+        TriangleCounter<StringNode> tc = new TriangleCounter<>(g, false, Algorithm.FORWARD);
+        TriangleFinder<StringNode> tf = new TriangleFinder<>(g, false);
+        Assert.assertEquals(tc.clusteringCoefficient(u), tf.clusteringCoefficient(u), 0.00001);
+        Assert.assertEquals(tc.avgClusteringCoefficient(), tf.avgClusteringCoefficient(), 0.00001);
+        Assert.assertEquals(tc.globalClusteringCoefficient(), tf.globalClusteringCoefficient(), 0.00001);
+    }
+
+    @Test
+    public void testForEachTriangle() throws Exception {
+        for (Algorithm algorithm : Algorithm.values()) {
+            for (boolean parallelism : new boolean[]{false, true}) {
+                CSRGraph<StringNode> csr = CSRGraph.of(g);
+                Set<Triangle<StringNode>> seen = ConcurrentHashMap.newKeySet();
+                AtomicInteger visits = new AtomicInteger();
+                Assert.assertTrue(TriangleCounter.forEachTriangle(csr, algorithm, parallelism, (a, b, c) -> {
+                    visits.incrementAndGet();
+                    seen.add(new Triangle<>(csr.node(a), csr.node(b), csr.node(c)));
+                    return true;
+                }));
+                Assert.assertEquals(visits.get(), 2);
+                Assert.assertEquals(seen, Set.of(new Triangle<>(u, v, w), new Triangle<>(u, w, x)));
+
+                TriangleCounter<StringNode> tc = new TriangleCounter<>(csr, parallelism, algorithm);
+                visits.set(0);
+                Assert.assertFalse(tc.forEachTriangle((a, b, c) -> visits.incrementAndGet() < 1));
+                if (!parallelism) // a call already in flight on another thread may still get through
+                    Assert.assertEquals(visits.get(), 1);
+            }
+        }
+    }
+
+    /**
+     * A hub with a ring around it, so the hub's work gets split between tasks.
+     */
+    @Test
+    public void testOwnPool() {
+        CSRGraphBuilder<StringNode> builder = new CSRGraphBuilder<>();
+        StringNode hub = new StringNode("hub");
+        for (int i = 0; i < 500; i++) {
+            builder.putEdge(hub, new StringNode("ring" + i));
+            builder.putEdge(new StringNode("ring" + i), new StringNode("ring" + (i + 1) % 500));
+        }
+        CSRGraph<StringNode> csr = builder.build();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        for (Algorithm algorithm : Algorithm.values()) {
+            TriangleCounter<StringNode> tc = new TriangleCounter<>(csr, algorithm, pool);
+            Assert.assertEquals(tc.countTriangles(), 500);
+            Assert.assertEquals(tc.countLocalTriangles(hub), 500);
+            Assert.assertEquals(tc.countLocalTriangles(new StringNode("ring7")), 2);
+        }
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownNode() throws Exception {
+        new TriangleCounter<>(g, false).clusteringCoefficient(new StringNode("nope"));
+    }
+}
@@ -0,0 +1,54 @@
+import com.trianglez.Algorithm;
+import com.trianglez.Estimate;
+import com.trianglez.TriangleCounter;
+import com.trianglez.TriangleEstimator;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.CSRGraphBuilder;
+import com.trianglez.node.types.FBPageNode;
+import com.trianglez.node.types.StringNode;
+import com.trianglez.readers.FBGraphReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+
+public class TestTriangleEstimator {
+
+    @Test
+    public void testCompleteGraph() {
+        CSRGraphBuilder<StringNode> builder = new CSRGraphBuilder<>();
+        for (int i = 0; i < 5; i++)
+            for (int j = i + 1; j < 5; j++)
+                builder.putEdge(new StringNode("n" + i), new StringNode("n" + j));
+        TriangleEstimator<StringNode> estimator = new TriangleEstimator<>(builder.build(), 1);
+        // every wedge is closed, so there's nothing to estimate
+        Assert.assertEquals(estimator.countTriangles(100).getValue(), 10, 0.00001);
+        Assert.assertEquals(estimator.globalClusteringCoefficient(100).getValue(), 0.5, 0.00001);
+        Assert.assertEquals(estimator.avgClusteringCoefficient(100).getValue(), 1, 0.00001);
+        Assert.assertEquals(estimator.clusteringCoefficient(new StringNode("n2"), 100).getValue(), 1, 0.00001);
+        Assert.assertEquals(estimator.countLocalTriangles(new StringNode("n2"), 100).getValue(), 6, 0.00001);
+        Assert.assertEquals(estimator.sparsifiedCount(1, 2).getValue(), 10, 0.00001);
+    }
+
+    @Test
+    public void testIntervalsCoverExactValues() throws Exception {
+        FBGraphReader reader = new FBGraphReader();
+        reader.read(Paths.get("testres/government_edges.csv").toFile());
+        CSRGraph<FBPageNode> g = reader.getCSRGraph();
+        TriangleCounter<FBPageNode> tc = new TriangleCounter<>(g, false, Algorithm.FORWARD);
+        TriangleEstimator<FBPageNode> estimator = new TriangleEstimator<>(g, 42);
+
+        Estimate triangles = estimator.countTriangles(50000);
+        Assert.assertTrue(triangles.toString(), triangles.contains(tc.countTriangles()));
+        Estimate global = estimator.globalClusteringCoefficient(50000);
+        Assert.assertTrue(global.toString(), global.contains(tc.globalClusteringCoefficient()));
+        Estimate avg = estimator.avgClusteringCoefficient(50000);
+        Assert.assertTrue(avg.toString(), avg.contains(tc.avgClusteringCoefficient()));
+        Estimate sparsified = estimator.sparsifiedCount(0.5, 4);
+        Assert.assertTrue(sparsified.toString(), sparsified.contains(tc.countTriangles()));
+
+        FBPageNode hub = g.node(g.degreeOrder()[g.nodeCount() - 1]);
+        Estimate local = estimator.clusteringCoefficient(hub, 20000);
+        Assert.assertTrue(local.toString(), local.contains(tc.clusteringCoefficient(hub)));
+    }
+}
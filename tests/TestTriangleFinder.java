@@ -1,6 +1,7 @@
 import com.google.common.graph.Graph;
 import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.MutableGraph;
+import com.trianglez.Algorithm;
 import com.trianglez.Triangle;
 import com.trianglez.TriangleFinder;
 import com.trianglez.readers.FBGraphReader;
@@ -12,6 +13,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -132,6 +134,33 @@ public class TestTriangleFinder {
         tf.uniqueTrianglesBloomOnly().forEach(System.out::println);
     }
 
+    @Test
+    public void testDistinctTriangles() throws Exception {
+        for (Algorithm algorithm : Algorithm.values()) {
+            for (boolean parallelism : new boolean[]{false, true}) {
+                TriangleFinder<StringNode> tf = new TriangleFinder<>(this.g, parallelism, algorithm);
+                List<Triangle<StringNode>> distinct = tf.distinctTriangles();
+                Assert.assertEquals(distinct.size(), tf.countTriangles());
+                Assert.assertEquals(new HashSet<>(distinct), tf.uniqueTriangles(false));
+            }
+        }
+    }
+
+    @Test
+    public void testForwardAlgorithm() throws Exception {
+        TriangleFinder<StringNode> nodeIterator = new TriangleFinder<>(this.g, false, Algorithm.NODE_ITERATOR);
+        for (boolean parallelism : new boolean[]{false, true}) {
+            TriangleFinder<StringNode> forward = new TriangleFinder<>(this.g, parallelism, Algorithm.FORWARD);
+            Assert.assertEquals(forward.countLocalTriangles(), nodeIterator.countLocalTriangles());
+            Assert.assertEquals(forward.uniqueTriangles(false), nodeIterator.uniqueTriangles(false));
+            Assert.assertEquals(forward.avgClusteringCoefficient(), nodeIterator.avgClusteringCoefficient(), 0.00001);
+            Assert.assertEquals(forward.globalClusteringCoefficient(),
+                    nodeIterator.globalClusteringCoefficient(), 0.00001);
+            for (StringNode n : List.of(u, v, w, x))
+                Assert.assertTrue(forward.getTriangles().get(n).containsAll(nodeIterator.getTriangles().get(n)));
+        }
+    }
+
     @Ignore("For benchmarking only.")
     @Test
     public void benchmarkTriangleFinder() throws Exception {
@@ -0,0 +1,100 @@
+import com.google.common.collect.Sets;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.Graphs;
+import com.google.common.graph.MutableGraph;
+import com.trianglez.TriangleCounter;
+import com.trianglez.TrussDecomposition;
+import com.trianglez.graph.CSRGraph;
+import com.trianglez.graph.CSRGraphBuilder;
+import com.trianglez.node.types.StringNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TestTrussDecomposition {
+    private StringNode u = new StringNode("u");
+    private StringNode v = new StringNode("v");
+    private StringNode w = new StringNode("w");
+    private StringNode x = new StringNode("x");
+    private StringNode y = new StringNode("y");
+
+    @Test
+    public void testSmall() {
+        CSRGraphBuilder<StringNode> builder = new CSRGraphBuilder<>();
+        // a 4-clique u v w x with y hanging off a triangle on u and a loose edge
+        builder.putEdge(u, v);
+        builder.putEdge(u, w);
+        builder.putEdge(u, x);
+        builder.putEdge(v, w);
+        builder.putEdge(v, x);
+        builder.putEdge(w, x);
+        builder.putEdge(u, y);
+        builder.putEdge(v, y);
+        CSRGraph<StringNode> g = builder.build();
+        TriangleCounter<StringNode> tc = new TriangleCounter<>(g, false);
+        int[] support = tc.getEdgeSupport();
+        int[] reverse = g.reverseEdges();
+        for (int p = 0; p < support.length; p++)
+            Assert.assertEquals(support[p], support[reverse[p]]);
+
+        TrussDecomposition<StringNode> truss = new TrussDecomposition<>(tc);
+        Assert.assertEquals(truss.trussness(u, v), 4);
+        Assert.assertEquals(truss.trussness(w, x), 4);
+        Assert.assertEquals(truss.trussness(y, u), 3);
+        Assert.assertEquals(truss.maxTruss(), 4);
+        Assert.assertEquals(truss.edgeCount(4), 6);
+        Assert.assertEquals(truss.edgeCount(3), 8);
+
+        CSRGraph<StringNode> four = truss.kTruss(4);
+        Assert.assertEquals(four.nodeCount(), 5);
+        Assert.assertEquals(four.edgeCount(), 6);
+        Assert.assertEquals(four.degree(four.indexOf(y)), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoEdge() {
+        CSRGraphBuilder<StringNode> builder = new CSRGraphBuilder<>();
+        builder.putEdge(u, v);
+        builder.putEdge(w, x);
+        new TrussDecomposition<>(builder.build(), false).trussness(u, w);
+    }
+
+    @Test
+    public void testMatchesPeeling() {
+        Random random = new Random(11);
+        StringNode[] nodes = new StringNode[30];
+        for (int i = 0; i < nodes.length; i++)
+            nodes[i] = new StringNode("n" + i);
+        MutableGraph<StringNode> g = GraphBuilder.undirected().allowsSelfLoops(false).build();
+        for (int i = 0; i < 180; i++) {
+            StringNode a = nodes[random.nextInt(nodes.length)];
+            StringNode b = nodes[random.nextInt(nodes.length)];
+            if (!a.equals(b))
+                g.putEdge(a, b);
+        }
+        for (boolean parallelism : new boolean[]{false, true}) {
+            TrussDecomposition<StringNode> truss = new TrussDecomposition<>(CSRGraph.of(g), parallelism);
+            // the k-truss is what's left after throwing out edges in less than k - 2 triangles until there are none
+            MutableGraph<StringNode> left = Graphs.copyOf(g);
+            for (int k = 3; !left.edges().isEmpty(); k++) {
+                boolean removed = true;
+                while (removed) {
+                    removed = false;
+                    List<EndpointPair<StringNode>> edges = new ArrayList<>(left.edges());
+                    for (EndpointPair<StringNode> e : edges) {
+                        if (Sets.intersection(left.adjacentNodes(e.nodeU()), left.adjacentNodes(e.nodeV())).size()
+                                < k - 2) {
+                            Assert.assertEquals(truss.trussness(e.nodeU(), e.nodeV()), k - 1);
+                            left.removeEdge(e.nodeU(), e.nodeV());
+                            removed = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}